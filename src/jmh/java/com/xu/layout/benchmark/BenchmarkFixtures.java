@@ -0,0 +1,129 @@
+package com.xu.layout.benchmark;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.xu.layout.entity.RegionBlock;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author xuzc
+ * <p>
+ * 基准测试输入：由 src/test/resources 中的 PDF 生成，不依赖模型
+ */
+final class BenchmarkFixtures {
+
+    static final float DPI = 150f;
+
+    private BenchmarkFixtures() {
+    }
+
+    static PDDocument loadDocument(String pdfName) throws IOException {
+        try (InputStream inputStream = ResourceUtil.getStream(pdfName)) {
+            return PDDocument.load(inputStream);
+        }
+    }
+
+    /**
+     * 以页面文本行合并出的段落作为区域块，坐标为 DPI 渲染后的图像像素；
+     * 字号明显大于正文的段落标记为 Title，模拟模型检测结果
+     */
+    static List<RegionBlock> textBlocks(PDDocument document, int pageIndex) throws IOException {
+        LineCollector collector = new LineCollector();
+        collector.setStartPage(pageIndex + 1);
+        collector.setEndPage(pageIndex + 1);
+        collector.writeText(document, new StringWriter());
+
+        float scale = DPI / 72f;
+        List<float[]> lines = collector.lines;
+        float bodyHeight = medianHeight(lines);
+        List<RegionBlock> blocks = new ArrayList<>();
+        float[] current = null;
+        for (float[] line : lines) {
+            boolean adjacent = current != null
+                    && line[1] - current[3] < bodyHeight * 0.8f
+                    && line[0] < current[2] && line[2] > current[0]
+                    && Math.abs(line[4] - current[4]) < 0.5f;
+            if (adjacent) {
+                current[0] = Math.min(current[0], line[0]);
+                current[2] = Math.max(current[2], line[2]);
+                current[3] = Math.max(current[3], line[3]);
+                continue;
+            }
+            if (current != null) {
+                blocks.add(toBlock(current, scale, bodyHeight, blocks.size()));
+            }
+            current = line.clone();
+        }
+        if (current != null) {
+            blocks.add(toBlock(current, scale, bodyHeight, blocks.size()));
+        }
+        return blocks;
+    }
+
+    /**
+     * 深拷贝区域块，布局排序会原地修改列表
+     */
+    static List<RegionBlock> copyOf(List<RegionBlock> blocks) {
+        List<RegionBlock> copy = new ArrayList<>(blocks.size());
+        for (RegionBlock block : blocks) {
+            copy.add(new RegionBlock(block.getLabel(), block.getLabelIndex(), block.getContent(), block.getBbox().clone(), block.getConfidence()));
+        }
+        return copy;
+    }
+
+    private static RegionBlock toBlock(float[] box, float scale, float bodyHeight, int index) {
+        boolean title = box[4] > bodyHeight * 1.3f;
+        float[] bbox = {box[0] * scale, box[1] * scale, box[2] * scale, box[3] * scale};
+        return new RegionBlock(title ? "Title" : "Text", title ? 1 : 0, "block-" + index, bbox, 0.9f);
+    }
+
+    private static float medianHeight(List<float[]> lines) {
+        if (lines.isEmpty()) {
+            return 10f;
+        }
+        float[] heights = new float[lines.size()];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = lines.get(i)[4];
+        }
+        Arrays.sort(heights);
+        return heights[heights.length / 2];
+    }
+
+    /**
+     * 收集每段连续文本的包围盒 [x1, y1, x2, y2, 字高]，PDF 坐标，原点在左上角
+     */
+    private static final class LineCollector extends PDFTextStripper {
+
+        private final List<float[]> lines = new ArrayList<>();
+
+        LineCollector() throws IOException {
+            setSortByPosition(true);
+        }
+
+        @Override
+        protected void writeString(String text, List<TextPosition> textPositions) {
+            if (textPositions.isEmpty() || text.isBlank()) {
+                return;
+            }
+            float x1 = Float.MAX_VALUE, y1 = Float.MAX_VALUE, x2 = 0, y2 = 0, height = 0;
+            for (TextPosition position : textPositions) {
+                float top = position.getYDirAdj() - position.getHeightDir();
+                x1 = Math.min(x1, position.getXDirAdj());
+                y1 = Math.min(y1, top);
+                x2 = Math.max(x2, position.getXDirAdj() + position.getWidthDirAdj());
+                y2 = Math.max(y2, position.getYDirAdj());
+                height = Math.max(height, position.getHeightDir());
+            }
+            lines.add(new float[]{x1, y1, x2, y2, height});
+        }
+    }
+
+}
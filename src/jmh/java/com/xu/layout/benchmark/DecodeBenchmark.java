@@ -0,0 +1,91 @@
+package com.xu.layout.benchmark;
+
+import com.xu.layout.core.Detection;
+import com.xu.layout.core.ResizeGeometry;
+import com.xu.layout.core.YoloOutputDecoder;
+import com.xu.layout.entity.RegionBlock;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author xuzc
+ * <p>
+ * 模型输出解码与非极大值抑制（ModelDetection.processOutput）
+ * <p>
+ * 输出张量按 YOLOv8 [4+C, N] 布局合成：页面文本块附近的候选框给出高置信度，其余为低置信度噪声
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DecodeBenchmark {
+
+    private static final int INPUT_SIZE = 640;
+
+    private static final int NUM_ANCHORS = 8400;
+
+    private static final List<String> LABELS = List.of("Text", "Title", "Figure", "Table", "Caption", "Equation");
+
+    private static final int NUM_CHANNELS = 4 + LABELS.size();
+
+    private static final int MAX_POSITIVES = 1500;
+
+    @Param({"研报.pdf", "石油报.pdf"})
+    public String pdf;
+
+    private FloatBuffer output;
+
+    private ResizeGeometry geometry;
+
+    private YoloOutputDecoder decoder;
+
+    @Setup
+    public void setup() throws Exception {
+        List<RegionBlock> blocks;
+        float pageWidth;
+        float pageHeight;
+        try (PDDocument document = BenchmarkFixtures.loadDocument(pdf)) {
+            blocks = BenchmarkFixtures.textBlocks(document, 0);
+            float scale = BenchmarkFixtures.DPI / 72f;
+            pageWidth = document.getPage(0).getMediaBox().getWidth() * scale;
+            pageHeight = document.getPage(0).getMediaBox().getHeight() * scale;
+        }
+        geometry = ResizeGeometry.stretch(Math.round(pageWidth), Math.round(pageHeight), INPUT_SIZE, INPUT_SIZE);
+        decoder = new YoloOutputDecoder(0.3f, 0.5f, LABELS);
+
+        Random random = new Random(42);
+        float[] raw = new float[NUM_CHANNELS * NUM_ANCHORS];
+        for (int i = 0; i < NUM_ANCHORS; i++) {
+            RegionBlock block = blocks.isEmpty() ? null : blocks.get(i % blocks.size());
+            // 每个文本块约有十个候选框，坐标带抖动，高置信度候选框总数上限接近真实模型输出
+            boolean positive = block != null && i < Math.min(blocks.size() * 10, MAX_POSITIVES);
+            float[] bbox = positive ? block.getBbox() : new float[]{0, 0, pageWidth, pageHeight};
+            float sx = geometry.getScaleX();
+            float sy = geometry.getScaleY();
+            float jitter = positive ? 4f : 600f;
+            raw[i] = ((bbox[0] + bbox[2]) / 2 * sx) + (random.nextFloat() - 0.5f) * jitter;
+            raw[NUM_ANCHORS + i] = ((bbox[1] + bbox[3]) / 2 * sy) + (random.nextFloat() - 0.5f) * jitter;
+            raw[2 * NUM_ANCHORS + i] = Math.max((bbox[2] - bbox[0]) * sx + (random.nextFloat() - 0.5f) * 4f, 1f);
+            raw[3 * NUM_ANCHORS + i] = Math.max((bbox[3] - bbox[1]) * sy + (random.nextFloat() - 0.5f) * 4f, 1f);
+            for (int label = 0; label < LABELS.size(); label++) {
+                raw[(4 + label) * NUM_ANCHORS + i] = random.nextFloat() * 0.05f;
+            }
+            if (positive) {
+                raw[(4 + block.getLabelIndex()) * NUM_ANCHORS + i] = 0.5f + random.nextFloat() * 0.5f;
+            }
+        }
+        output = FloatBuffer.wrap(raw);
+    }
+
+    @Benchmark
+    public List<Detection> decode() {
+        return decoder.decode(output, 0, NUM_CHANNELS, NUM_ANCHORS, geometry);
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.xu.layout.benchmark;
+
+import com.xu.layout.core.Detection;
+import com.xu.layout.core.ModelDetection;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author xuzc
+ * <p>
+ * 端到端单页检测（预处理 + 推理 + 解码），需要模型文件位于类路径中
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InferenceBenchmark {
+
+    @Param({"yolov8n_layout_general6.onnx"})
+    public String model;
+
+    @Param({"研报.pdf"})
+    public String pdf;
+
+    private ModelDetection modelDetection;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setup() throws Exception {
+        if (getClass().getClassLoader().getResource(model) == null) {
+            throw new IllegalStateException("model not found on classpath: " + model);
+        }
+        modelDetection = new ModelDetection(model, "labels.names");
+        try (PDDocument document = BenchmarkFixtures.loadDocument(pdf)) {
+            image = new PDFRenderer(document).renderImageWithDPI(0, BenchmarkFixtures.DPI);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        modelDetection.close();
+    }
+
+    @Benchmark
+    public List<Detection> detectObjects() throws Exception {
+        return modelDetection.detectObjects(image);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.xu.layout.benchmark;
+
+import com.xu.layout.core.ColumnDetector;
+import com.xu.layout.core.LayoutParser;
+import com.xu.layout.entity.RegionBlock;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author xuzc
+ * <p>
+ * 布局排序（ColumnDetector.detectColumns 与 LayoutParser.processLayout），区域块由页面文本段落生成
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LayoutBenchmark {
+
+    @Param({"研报.pdf", "石油报.pdf", "Attention Is All You Need.pdf", "三季度报.pdf"})
+    public String pdf;
+
+    private List<RegionBlock> blocks;
+
+    @Setup
+    public void setup() throws Exception {
+        try (PDDocument document = BenchmarkFixtures.loadDocument(pdf)) {
+            blocks = BenchmarkFixtures.textBlocks(document, 0);
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, List<RegionBlock>> detectColumns() {
+        return ColumnDetector.detectColumns(new ArrayList<>(blocks));
+    }
+
+    @Benchmark
+    public List<RegionBlock> processLayout() {
+        return LayoutParser.processLayout(BenchmarkFixtures.copyOf(blocks));
+    }
+
+}
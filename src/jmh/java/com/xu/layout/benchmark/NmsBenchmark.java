@@ -0,0 +1,95 @@
+package com.xu.layout.benchmark;
+
+import com.xu.layout.utils.ImageUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author xuzc
+ * <p>
+ * 非极大值抑制：基于 List 的逐类别实现与基于原始数组的类别批量实现对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NmsBenchmark {
+
+    private static final int NUM_LABELS = 6;
+
+    private static final float IOU_THRESHOLD = 0.5f;
+
+    /**
+     * 每页候选框数量，表格密集的页面每个类别可达数百个
+     */
+    @Param({"100", "500", "2000"})
+    public int count;
+
+    private float[] boxes;
+
+    private float[] scores;
+
+    private int[] labels;
+
+    private List<List<float[]>> perLabelBoxes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        boxes = new float[count * 4];
+        scores = new float[count];
+        labels = new int[count];
+        perLabelBoxes = new ArrayList<>();
+        for (int label = 0; label < NUM_LABELS; label++) {
+            perLabelBoxes.add(new ArrayList<>());
+        }
+        // 模拟 1240x1754 页面上成簇出现的候选框
+        int clusters = Math.max(count / 8, 1);
+        float[][] centers = new float[clusters][2];
+        for (float[] center : centers) {
+            center[0] = random.nextFloat() * 1100 + 70;
+            center[1] = random.nextFloat() * 1600 + 70;
+        }
+        for (int i = 0; i < count; i++) {
+            float[] center = centers[random.nextInt(clusters)];
+            float x1 = center[0] - 60 + random.nextFloat() * 20;
+            float y1 = center[1] - 20 + random.nextFloat() * 10;
+            float x2 = center[0] + 60 + random.nextFloat() * 20;
+            float y2 = center[1] + 20 + random.nextFloat() * 10;
+            boxes[i * 4] = x1;
+            boxes[i * 4 + 1] = y1;
+            boxes[i * 4 + 2] = x2;
+            boxes[i * 4 + 3] = y2;
+            scores[i] = 0.3f + random.nextFloat() * 0.7f;
+            labels[i] = random.nextInt(NUM_LABELS);
+            perLabelBoxes.get(labels[i]).add(new float[]{x1, y1, x2, y2, scores[i]});
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public void listPerLabel(Blackhole blackhole) {
+        for (List<float[]> bboxList : perLabelBoxes) {
+            // 原实现会对传入列表排序并移除元素，每次调用需复制
+            blackhole.consume(ImageUtil.nonMaxSuppression(new ArrayList<>(bboxList), IOU_THRESHOLD));
+        }
+    }
+
+    @Benchmark
+    public int[] primitiveClassBatched() {
+        return ImageUtil.nonMaxSuppression(boxes, scores, labels, count, IOU_THRESHOLD);
+    }
+
+    @Benchmark
+    public int[] softNms() {
+        // Soft-NMS 会改写置信度，使用副本
+        return ImageUtil.softNonMaxSuppression(boxes, scores.clone(), labels, count, 0.5f, 0.3f);
+    }
+
+}
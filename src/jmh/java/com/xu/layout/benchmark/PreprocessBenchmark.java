@@ -0,0 +1,63 @@
+package com.xu.layout.benchmark;
+
+import com.xu.layout.core.ImagePreprocessor;
+import com.xu.layout.core.ResizeGeometry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author xuzc
+ * <p>
+ * 模型输入预处理（ModelDetection.prepareInput 的缩放、归一化与转置部分）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PreprocessBenchmark {
+
+    @Param({"研报.pdf", "石油报.pdf"})
+    public String pdf;
+
+    @Param({"640"})
+    public int inputSize;
+
+    private BufferedImage image;
+
+    private ImagePreprocessor preprocessor;
+
+    private ResizeGeometry stretch;
+
+    private ResizeGeometry letterbox;
+
+    @Setup
+    public void setup() throws Exception {
+        try (PDDocument document = BenchmarkFixtures.loadDocument(pdf)) {
+            image = new PDFRenderer(document).renderImageWithDPI(0, BenchmarkFixtures.DPI);
+        }
+        preprocessor = new ImagePreprocessor(inputSize, inputSize);
+        stretch = ResizeGeometry.stretch(image.getWidth(), image.getHeight(), inputSize, inputSize);
+        letterbox = ResizeGeometry.letterbox(image.getWidth(), image.getHeight(), inputSize, inputSize);
+    }
+
+    @Benchmark
+    public FloatBuffer stretch() {
+        FloatBuffer buffer = preprocessor.acquireBuffer(1);
+        preprocessor.preprocess(image, stretch, buffer, 0);
+        return buffer;
+    }
+
+    @Benchmark
+    public FloatBuffer letterbox() {
+        FloatBuffer buffer = preprocessor.acquireBuffer(1);
+        preprocessor.preprocess(image, letterbox, buffer, 0);
+        return buffer;
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.xu.layout.benchmark;
+
+import com.xu.layout.core.PdfTextExtractor;
+import com.xu.layout.entity.RegionBlock;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author xuzc
+ * <p>
+ * 按区域提取页面文本：逐区域解析页面与整页一次解析对比，区域为页面文本段落
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TextExtractionBenchmark {
+
+    @Param({"研报.pdf", "石油报.pdf", "三季度报.pdf"})
+    public String pdf;
+
+    private PDDocument document;
+
+    private PDPage page;
+
+    private BufferedImage image;
+
+    private List<Rectangle> regions;
+
+    @Setup
+    public void setup() throws Exception {
+        document = BenchmarkFixtures.loadDocument(pdf);
+        page = document.getPage(0);
+        float scale = BenchmarkFixtures.DPI / 72f;
+        // 只用于提供图像尺寸，与渲染结果等大
+        image = new BufferedImage(Math.round(page.getMediaBox().getWidth() * scale),
+                Math.round(page.getMediaBox().getHeight() * scale), BufferedImage.TYPE_BYTE_BINARY);
+        regions = new ArrayList<>();
+        for (RegionBlock block : BenchmarkFixtures.textBlocks(document, 0)) {
+            float[] bbox = block.getBbox();
+            regions.add(new Rectangle(Math.round(bbox[0]), Math.round(bbox[1]),
+                    Math.round(bbox[2] - bbox[0]), Math.round(bbox[3] - bbox[1])));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        document.close();
+    }
+
+    @Benchmark
+    public void extractTextFromRegion(Blackhole blackhole) {
+        for (Rectangle region : regions) {
+            blackhole.consume(PdfTextExtractor.extractTextFromRegion(image, region, 0, page));
+        }
+    }
+
+    @Benchmark
+    public List<String> extractTextFromRegions() {
+        return PdfTextExtractor.extractTextFromRegions(image, regions, 0, page);
+    }
+
+}
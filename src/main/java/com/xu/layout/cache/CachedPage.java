@@ -0,0 +1,57 @@
+package com.xu.layout.cache;
+
+import com.xu.layout.entity.LayoutNode;
+import com.xu.layout.entity.PageMode;
+import com.xu.layout.entity.RegionBlock;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * @author xuzc
+ * <p>
+ * 缓存的单页结果：按阅读顺序排列的区域块、页面布局树及其所基于的页面图像参数
+ */
+@Getter
+public class CachedPage {
+
+    private final PageMode pageMode;
+
+    private final float renderDpi;
+
+    private final int imageWidth;
+
+    private final int imageHeight;
+
+    private final List<RegionBlock> blocks;
+
+    /**
+     * 页面布局树，先序遍历与 blocks 一致，节点引用 blocks 中的同一批区域块
+     */
+    private final LayoutNode layoutTree;
+
+    public CachedPage(PageMode pageMode, float renderDpi, int imageWidth, int imageHeight, List<RegionBlock> blocks, LayoutNode layoutTree) {
+        this.pageMode = pageMode;
+        this.renderDpi = renderDpi;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.blocks = blocks;
+        this.layoutTree = layoutTree;
+    }
+
+    /**
+     * 没有布局树时，区域块按顺序直接挂在页面节点下
+     */
+    public CachedPage(PageMode pageMode, float renderDpi, int imageWidth, int imageHeight, List<RegionBlock> blocks) {
+        this(pageMode, renderDpi, imageWidth, imageHeight, blocks, flatTree(blocks));
+    }
+
+    private static LayoutNode flatTree(List<RegionBlock> blocks) {
+        LayoutNode page = new LayoutNode(LayoutNode.Type.PAGE, null);
+        for (RegionBlock block : blocks) {
+            page.addChild(new LayoutNode(block));
+        }
+        return page;
+    }
+
+}
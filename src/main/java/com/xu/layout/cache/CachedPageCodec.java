@@ -0,0 +1,161 @@
+package com.xu.layout.cache;
+
+import com.xu.layout.entity.LayoutNode;
+import com.xu.layout.entity.PageMode;
+import com.xu.layout.entity.RegionBlock;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author xuzc
+ * <p>
+ * CachedPage 的二进制编码，缓存中只保存字节，取出时重新构造区域块与布局树，调用方修改结果不会影响缓存。
+ * 布局树按先序记录各节点的类型、是否带内容及子节点数，节点内容依次对应区域块列表，不重复保存区域块
+ */
+final class CachedPageCodec {
+
+    private static final int VERSION = 2;
+
+    private CachedPageCodec() {
+    }
+
+    static byte[] encode(CachedPage page) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(page.getPageMode().ordinal());
+            out.writeFloat(page.getRenderDpi());
+            out.writeInt(page.getImageWidth());
+            out.writeInt(page.getImageHeight());
+            out.writeInt(page.getBlocks().size());
+            for (RegionBlock block : page.getBlocks()) {
+                writeString(out, block.getLabel());
+                out.writeInt(block.getLabelIndex());
+                writeString(out, block.getContent());
+                float[] bbox = block.getBbox();
+                out.writeInt(bbox.length);
+                for (float value : bbox) {
+                    out.writeFloat(value);
+                }
+                out.writeFloat(block.getConfidence());
+            }
+            writeTree(out, page.getLayoutTree());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static CachedPage decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("unsupported cache entry version: " + version);
+            }
+            PageMode pageMode = PageMode.values()[in.readByte()];
+            float renderDpi = in.readFloat();
+            int imageWidth = in.readInt();
+            int imageHeight = in.readInt();
+            int count = in.readInt();
+            List<RegionBlock> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String label = readString(in);
+                int labelIndex = in.readInt();
+                String content = readString(in);
+                float[] bbox = new float[in.readInt()];
+                for (int j = 0; j < bbox.length; j++) {
+                    bbox[j] = in.readFloat();
+                }
+                blocks.add(new RegionBlock(label, labelIndex, content, bbox, in.readFloat()));
+            }
+            return new CachedPage(pageMode, renderDpi, imageWidth, imageHeight, blocks, readTree(in, blocks));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 非递归的先序编码，与 LayoutNode#preorderTraverse 的顺序相同
+     */
+    private static void writeTree(DataOutputStream out, LayoutNode root) throws IOException {
+        Deque<LayoutNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            LayoutNode node = stack.pop();
+            out.writeByte(node.getType().ordinal());
+            out.writeBoolean(node.getLabelContent() != null);
+            List<LayoutNode> children = node.getChildren();
+            out.writeInt(children.size());
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+    }
+
+    /**
+     * 按先序重建布局树，带内容的节点依次取用区域块；栈中保存尚未读满子节点的祖先及其剩余子节点数
+     */
+    private static LayoutNode readTree(DataInputStream in, List<RegionBlock> blocks) throws IOException {
+        Iterator<RegionBlock> contents = blocks.iterator();
+        Deque<LayoutNode> parents = new ArrayDeque<>();
+        Deque<int[]> remaining = new ArrayDeque<>();
+        LayoutNode root = null;
+        do {
+            LayoutNode.Type type = LayoutNode.Type.values()[in.readByte()];
+            boolean hasContent = in.readBoolean();
+            if (hasContent && !contents.hasNext()) {
+                throw new IOException("layout tree references more blocks than cached");
+            }
+            LayoutNode node = new LayoutNode(type, hasContent ? contents.next() : null);
+            int childCount = in.readInt();
+            if (root == null) {
+                root = node;
+            } else {
+                parents.peek().addChild(node);
+                remaining.peek()[0]--;
+            }
+            if (childCount > 0) {
+                parents.push(node);
+                remaining.push(new int[]{childCount});
+            }
+            while (!remaining.isEmpty() && remaining.peek()[0] == 0) {
+                parents.pop();
+                remaining.pop();
+            }
+        } while (!parents.isEmpty());
+        if (contents.hasNext()) {
+            throw new IOException("layout tree does not cover all cached blocks");
+        }
+        return root;
+    }
+
+    /**
+     * writeUTF 限制 64KB，表格区域的文本可能超过
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
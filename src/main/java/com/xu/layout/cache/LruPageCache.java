@@ -0,0 +1,61 @@
+package com.xu.layout.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author xuzc
+ * <p>
+ * 内存 LRU 缓存，按编码后的字节数淘汰最久未使用的页面
+ */
+public class LruPageCache implements PageCache {
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    public LruPageCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public CachedPage get(String key) {
+        byte[] data;
+        synchronized (this) {
+            data = entries.get(key);
+        }
+        return data == null ? null : CachedPageCodec.decode(data);
+    }
+
+    @Override
+    public void put(String key, CachedPage page) {
+        byte[] data = CachedPageCodec.encode(page);
+        if (data.length > maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            byte[] previous = entries.put(key, data);
+            totalBytes += data.length - (previous == null ? 0 : previous.length);
+            Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                totalBytes -= iterator.next().getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+}
@@ -0,0 +1,248 @@
+package com.xu.layout.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * @author xuzc
+ * <p>
+ * 磁盘缓存：记录追加写入分段文件，写满的分段以只读方式内存映射，索引在打开时扫描分段重建。
+ * <p>
+ * 记录格式：magic | key 长度 | key | 数据长度 | 数据 | 数据 CRC32。
+ * 写入中断导致的不完整记录在重新打开时被截断；同一个 key 以最后写入的记录为准，旧记录不回收
+ */
+@Slf4j
+public class MappedSegmentPageCache implements PageCache {
+
+    private static final int MAGIC = 0x4C345043;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    /**
+     * magic、key 长度、数据长度、CRC32
+     */
+    private static final int RECORD_OVERHEAD = 16;
+
+    private final Path directory;
+
+    private final long segmentBytes;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+
+    /**
+     * 已写满的分段，下标为分段序号
+     */
+    private final List<MappedByteBuffer> sealedSegments = new ArrayList<>();
+
+    private FileChannel activeChannel;
+
+    private int activeSegment;
+
+    private long activeSize;
+
+    public MappedSegmentPageCache(Path directory) throws IOException {
+        this(directory, 64L * 1024 * 1024);
+    }
+
+    /**
+     * @param directory    分段文件所在目录
+     * @param segmentBytes 单个分段的大小上限，超过后写入新分段；单条记录大于该值时独占一个分段
+     */
+    public MappedSegmentPageCache(Path directory, long segmentBytes) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentBytes out of range: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().collect(Collectors.toList());
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            if (!segment.equals(segmentPath(i))) {
+                throw new IOException("unexpected segment file: " + segment);
+            }
+            if (i < segments.size() - 1) {
+                MappedByteBuffer mapped = map(segment);
+                scan(mapped, i);
+                sealedSegments.add(mapped);
+            }
+        }
+        activeSegment = Math.max(segments.size() - 1, 0);
+        activeChannel = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (activeChannel.size() > 0) {
+            long valid = scan(activeChannel.map(FileChannel.MapMode.READ_ONLY, 0, activeChannel.size()), activeSegment);
+            if (valid < activeChannel.size()) {
+                log.warn("截断不完整的缓存记录: {}, {} -> {}", segmentPath(activeSegment), activeChannel.size(), valid);
+                activeChannel.truncate(valid);
+            }
+        }
+        activeSize = activeChannel.size();
+    }
+
+    @Override
+    public CachedPage get(String key) {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        byte[] data = new byte[location.length];
+        MappedByteBuffer sealed = sealedSegment(location.segment);
+        if (sealed == null) {
+            // 活动分段可能同时被写满并关闭，在锁内读取
+            synchronized (this) {
+                sealed = sealedSegment(location.segment);
+                if (sealed == null) {
+                    readActive(location, data);
+                }
+            }
+        }
+        if (sealed != null) {
+            sealed.get(location.offset, data);
+        }
+        return CachedPageCodec.decode(data);
+    }
+
+    @Override
+    public synchronized void put(String key, CachedPage page) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] data = CachedPageCodec.encode(page);
+        int recordLength = RECORD_OVERHEAD + keyBytes.length + data.length;
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        ByteBuffer record = ByteBuffer.allocate(recordLength);
+        record.putInt(MAGIC).putInt(keyBytes.length).put(keyBytes).putInt(data.length).put(data).putInt((int) crc.getValue());
+        record.flip();
+        try {
+            if (activeSize > 0 && activeSize + recordLength > segmentBytes) {
+                rollSegment();
+            }
+            long position = activeSize;
+            while (record.hasRemaining()) {
+                position += activeChannel.write(record, position);
+            }
+            index.put(key, new Location(activeSegment, (int) (activeSize + 12 + keyBytes.length), data.length));
+            activeSize = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readActive(Location location, byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long position = location.offset;
+        try {
+            while (buffer.hasRemaining()) {
+                int read = activeChannel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("unexpected end of segment " + location.segment);
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        activeChannel.close();
+    }
+
+    /**
+     * 当前分段写满：改为只读映射，后续记录写入新分段
+     */
+    private void rollSegment() throws IOException {
+        activeChannel.force(false);
+        activeChannel.close();
+        MappedByteBuffer mapped = map(segmentPath(activeSegment));
+        synchronized (sealedSegments) {
+            sealedSegments.add(mapped);
+        }
+        activeSegment++;
+        activeChannel = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSize = 0;
+    }
+
+    private MappedByteBuffer sealedSegment(int segment) {
+        synchronized (sealedSegments) {
+            return segment < sealedSegments.size() ? sealedSegments.get(segment) : null;
+        }
+    }
+
+    /**
+     * 扫描分段中的记录并加入索引
+     *
+     * @return 最后一条完整记录的结束位置
+     */
+    private long scan(ByteBuffer buffer, int segment) {
+        int position = 0;
+        int limit = buffer.limit();
+        CRC32 crc = new CRC32();
+        while (limit - position >= RECORD_OVERHEAD) {
+            if (buffer.getInt(position) != MAGIC) {
+                break;
+            }
+            int keyLength = buffer.getInt(position + 4);
+            if (keyLength < 0 || limit - position - RECORD_OVERHEAD < keyLength) {
+                break;
+            }
+            int dataLength = buffer.getInt(position + 8 + keyLength);
+            if (dataLength < 0 || limit - position - RECORD_OVERHEAD - keyLength < dataLength) {
+                break;
+            }
+            int dataOffset = position + 12 + keyLength;
+            crc.reset();
+            crc.update(buffer.slice(dataOffset, dataLength));
+            if ((int) crc.getValue() != buffer.getInt(dataOffset + dataLength)) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(position + 8, keyBytes);
+            index.put(new String(keyBytes, StandardCharsets.UTF_8), new Location(segment, dataOffset, dataLength));
+            position = dataOffset + dataLength + 4;
+        }
+        return position;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private record Location(int segment, int offset, int length) {
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.xu.layout.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * @author xuzc
+ * <p>
+ * 单页检测结果缓存，key 由 {@link PageKeys} 根据页面内容与模型、参数计算。
+ * 命中时跳过渲染、推理和文本提取；实现需线程安全
+ */
+public interface PageCache extends Closeable {
+
+    /**
+     * @return 缓存的页面结果，未命中返回 null
+     */
+    CachedPage get(String key);
+
+    void put(String key, CachedPage page);
+
+    @Override
+    default void close() throws IOException {
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.xu.layout.cache;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * @author xuzc
+ * <p>
+ * 计算页面缓存 key：SHA-256(参数指纹, 页面尺寸与旋转, 内容流, 资源, 注释)。
+ * 流按原始编码字节计算，不解压；/Parent 与 /P 等回指不参与计算。
+ * <p>
+ * 每个文档使用一个实例，需在持有 PDDocument 的线程上使用：间接对象（字体、XObject、继承的资源字典等）
+ * 单独计算摘要并按对象缓存，父对象只计入其摘要，多个页面共享的资源在整个文档中只计算一次
+ */
+public final class PageKeys {
+
+    private static final Set<COSName> SKIPPED_KEYS = Set.of(COSName.PARENT, COSName.P);
+
+    /**
+     * 间接对象及资源字典的摘要，按对象标识缓存
+     */
+    private final Map<COSBase, byte[]> digests = new IdentityHashMap<>();
+
+    /**
+     * 正在计算摘要的间接对象，再次遇到时说明存在循环引用
+     */
+    private final Set<COSBase> inProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * 单独计算一个页面的 key，不复用其他页面的摘要
+     *
+     * @param page        PDF 页面
+     * @param fingerprint 模型与检测参数的指纹，参数变化时 key 随之变化
+     */
+    public static String pageKey(PDPage page, String fingerprint) throws IOException {
+        return new PageKeys().key(page, fingerprint);
+    }
+
+    /**
+     * @param page        PDF 页面
+     * @param fingerprint 模型与检测参数的指纹，参数变化时 key 随之变化
+     */
+    public String key(PDPage page, String fingerprint) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(fingerprint.getBytes(StandardCharsets.UTF_8));
+        updateRectangle(digest, page.getMediaBox());
+        updateRectangle(digest, page.getCropBox());
+        updateInt(digest, page.getRotation());
+        Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        COSDictionary pageDictionary = page.getCOSObject();
+        update(digest, pageDictionary.getItem(COSName.CONTENTS), visited);
+        // 资源可能继承自页面树的上级节点，由多个页面共享同一个字典对象
+        if (page.getResources() == null) {
+            update(digest, null, visited);
+        } else {
+            updateShared(digest, page.getResources().getCOSObject());
+        }
+        update(digest, pageDictionary.getItem(COSName.ANNOTS), visited);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 字节内容的 SHA-256，用于模型文件等较大输入的指纹
+     */
+    public static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(sha256().digest(bytes));
+    }
+
+    private void update(MessageDigest digest, COSBase base, Set<COSBase> visited) throws IOException {
+        if (base instanceof COSObject) {
+            base = ((COSObject) base).getObject();
+            if (base instanceof COSDictionary || base instanceof COSArray) {
+                updateShared(digest, base);
+                return;
+            }
+        }
+        if (base == null || base instanceof COSNull) {
+            digest.update((byte) 'n');
+        } else if (base instanceof COSDictionary) {
+            if (!visited.add(base)) {
+                digest.update((byte) 'r');
+                return;
+            }
+            COSDictionary dictionary = (COSDictionary) base;
+            digest.update((byte) 'd');
+            // 按键名排序，与对象在文件中的书写顺序无关
+            List<COSName> keys = new ArrayList<>(dictionary.keySet());
+            keys.sort(Comparator.naturalOrder());
+            for (COSName key : keys) {
+                if (SKIPPED_KEYS.contains(key)) {
+                    continue;
+                }
+                updateString(digest, key.getName());
+                update(digest, dictionary.getItem(key), visited);
+            }
+            if (base instanceof COSStream) {
+                digest.update((byte) 's');
+                try (InputStream in = ((COSStream) base).createRawInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) > 0) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+        } else if (base instanceof COSArray) {
+            if (!visited.add(base)) {
+                digest.update((byte) 'r');
+                return;
+            }
+            COSArray array = (COSArray) base;
+            digest.update((byte) 'a');
+            updateInt(digest, array.size());
+            for (int i = 0; i < array.size(); i++) {
+                update(digest, array.get(i), visited);
+            }
+        } else if (base instanceof COSName) {
+            digest.update((byte) '/');
+            updateString(digest, ((COSName) base).getName());
+        } else if (base instanceof COSString) {
+            digest.update((byte) '(');
+            byte[] bytes = ((COSString) base).getBytes();
+            updateInt(digest, bytes.length);
+            digest.update(bytes);
+        } else if (base instanceof COSInteger) {
+            digest.update((byte) 'i');
+            updateString(digest, Long.toString(((COSInteger) base).longValue()));
+        } else if (base instanceof COSNumber) {
+            digest.update((byte) 'f');
+            updateString(digest, Float.toString(((COSNumber) base).floatValue()));
+        } else if (base instanceof COSBoolean) {
+            digest.update(((COSBoolean) base).getValue() ? (byte) 't' : (byte) 'F');
+        } else {
+            updateString(digest, base.toString());
+        }
+    }
+
+    /**
+     * 计入对象的摘要，对象的摘要只在首次遇到时计算。
+     * 循环引用在回到正在计算的对象处截断，此时摘要与遍历起点有关，只会造成缓存未命中
+     */
+    private void updateShared(MessageDigest digest, COSBase base) throws IOException {
+        byte[] objectDigest = digests.get(base);
+        if (objectDigest == null) {
+            if (!inProgress.add(base)) {
+                digest.update((byte) 'r');
+                return;
+            }
+            MessageDigest sharedDigest = sha256();
+            try {
+                update(sharedDigest, base, Collections.newSetFromMap(new IdentityHashMap<>()));
+            } finally {
+                inProgress.remove(base);
+            }
+            objectDigest = sharedDigest.digest();
+            digests.put(base, objectDigest);
+        }
+        digest.update((byte) 'x');
+        digest.update(objectDigest);
+    }
+
+    private static void updateRectangle(MessageDigest digest, PDRectangle rectangle) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putFloat(rectangle.getLowerLeftX()).putFloat(rectangle.getLowerLeftY())
+                .putFloat(rectangle.getUpperRightX()).putFloat(rectangle.getUpperRightY());
+        digest.update(buffer.array());
+    }
+
+    private static void updateInt(MessageDigest digest, int value) {
+        digest.update(ByteBuffer.allocate(4).putInt(value).array());
+    }
+
+    private static void updateString(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateInt(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
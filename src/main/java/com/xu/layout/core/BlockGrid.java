@@ -0,0 +1,131 @@
+package com.xu.layout.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author xuzc
+ * <p>
+ * 区域块边界框的均匀网格索引，用于包含关系查询。
+ * <p>
+ * 加入的边界框按容差向外扩展后登记到覆盖的所有网格中；能包含某个区域块的边界框一定覆盖该区域块的中心点，
+ * 因此查询只需检查中心点所在网格中的候选框
+ */
+final class BlockGrid {
+
+    private static final int MAX_CELLS_PER_SIDE = 64;
+
+    private final float tolerance;
+
+    private final float originX;
+
+    private final float originY;
+
+    private final float cellWidth;
+
+    private final float cellHeight;
+
+    private final int columns;
+
+    private final int rows;
+
+    private final BlockTable table;
+
+    /**
+     * 每个网格中登记的块 id
+     */
+    private final List<IntList> cells;
+
+    /**
+     * @param table     页面区域块
+     * @param ids       确定网格范围的块 id，需全部为 {@link BlockTable#isWellFormed(int[]) 规范边界框}
+     * @param tolerance 包含判断的容差
+     */
+    BlockGrid(BlockTable table, int[] ids, float tolerance) {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int id : ids) {
+            minX = Math.min(minX, table.x1[id]);
+            minY = Math.min(minY, table.y1[id]);
+            maxX = Math.max(maxX, table.x2[id]);
+            maxY = Math.max(maxY, table.y2[id]);
+        }
+        int side = Math.max(1, Math.min(MAX_CELLS_PER_SIDE, (int) Math.ceil(Math.sqrt(ids.length))));
+        this.table = table;
+        this.tolerance = tolerance;
+        this.originX = minX;
+        this.originY = minY;
+        this.columns = side;
+        this.rows = side;
+        this.cellWidth = Math.max((maxX - minX) / side, Float.MIN_NORMAL);
+        this.cellHeight = Math.max((maxY - minY) / side, Float.MIN_NORMAL);
+        this.cells = new ArrayList<>(side * side);
+        for (int i = 0; i < side * side; i++) {
+            cells.add(null);
+        }
+    }
+
+    void add(int id) {
+        int col1 = column(table.x1[id] - tolerance);
+        int col2 = column(table.x2[id] + tolerance);
+        int row1 = row(table.y1[id] - tolerance);
+        int row2 = row(table.y2[id] + tolerance);
+        for (int row = row1; row <= row2; row++) {
+            for (int col = col1; col <= col2; col++) {
+                int cell = row * columns + col;
+                IntList candidates = cells.get(cell);
+                if (candidates == null) {
+                    candidates = new IntList();
+                    cells.set(cell, candidates);
+                }
+                candidates.add(id);
+            }
+        }
+    }
+
+    /**
+     * 已加入的区域块中是否有一个在容差范围内包含 id 对应的区域块
+     */
+    boolean isContained(int id) {
+        int col = column((table.x1[id] + table.x2[id]) / 2);
+        int row = row((table.y1[id] + table.y2[id]) / 2);
+        IntList candidates = cells.get(row * columns + col);
+        if (candidates == null) {
+            return false;
+        }
+        for (int i = 0; i < candidates.size; i++) {
+            if (isContainedIn(table, id, candidates.values[i], tolerance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isContainedIn(BlockTable table, int small, int large, float tolerance) {
+        return table.x1[small] >= table.x1[large] - tolerance && table.y1[small] >= table.y1[large] - tolerance &&
+                table.x2[small] <= table.x2[large] + tolerance && table.y2[small] <= table.y2[large] + tolerance;
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - originX) / cellWidth)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - originY) / cellHeight)));
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+}
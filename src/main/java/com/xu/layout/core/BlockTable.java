@@ -0,0 +1,95 @@
+package com.xu.layout.core;
+
+import com.xu.layout.entity.RegionBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author xuzc
+ * <p>
+ * 单页区域块的列式表示：坐标及是否为标题保存在原始数组中，区域块以下标（块 id）引用。
+ * 布局排序的各阶段只读取这些数组、传递 int 数组，在 API 边界才按 id 取回原始 RegionBlock
+ */
+final class BlockTable {
+
+    private static final String TITLE = "Title";
+
+    private final List<RegionBlock> blocks;
+
+    final float[] x1;
+
+    final float[] y1;
+
+    final float[] x2;
+
+    final float[] y2;
+
+    /**
+     * 标签为 Title（忽略大小写）；标签序号取决于标签文件的顺序，因此按标签名判断，每个块只比较一次
+     */
+    final boolean[] title;
+
+    BlockTable(List<RegionBlock> blocks) {
+        int size = blocks.size();
+        this.blocks = blocks;
+        this.x1 = new float[size];
+        this.y1 = new float[size];
+        this.x2 = new float[size];
+        this.y2 = new float[size];
+        this.title = new boolean[size];
+        for (int id = 0; id < size; id++) {
+            RegionBlock block = blocks.get(id);
+            float[] bbox = block.getBbox();
+            x1[id] = bbox[0];
+            y1[id] = bbox[1];
+            x2[id] = bbox[2];
+            y2[id] = bbox[3];
+            title[id] = TITLE.equalsIgnoreCase(block.getLabel());
+        }
+    }
+
+    int size() {
+        return x1.length;
+    }
+
+    /**
+     * 按输入顺序的全部块 id
+     */
+    int[] ids() {
+        int[] ids = new int[size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = id;
+        }
+        return ids;
+    }
+
+    RegionBlock block(int id) {
+        return blocks.get(id);
+    }
+
+    void addBlocks(int[] ids, int from, int to, List<RegionBlock> target) {
+        for (int i = from; i < to; i++) {
+            target.add(blocks.get(ids[i]));
+        }
+    }
+
+    List<RegionBlock> toBlocks(int[] ids) {
+        List<RegionBlock> result = new ArrayList<>(ids.length);
+        addBlocks(ids, 0, ids.length, result);
+        return result;
+    }
+
+    /**
+     * x1 <= x2、y1 <= y2 且不含 NaN，空间索引的剪枝只对这类边界框成立
+     */
+    boolean isWellFormed(int[] ids) {
+        for (int id : ids) {
+            if (!(x1[id] <= x2[id] && y1[id] <= y2[id])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
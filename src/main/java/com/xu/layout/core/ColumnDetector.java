@@ -6,97 +6,107 @@ import java.util.*;
 
 /**
  * @author xuzc
+ * <p>
+ * 按 x 方向把区域块聚类成列：按输入顺序逐块放入第一个满足条件的已有列，没有时新建一列。
+ * <p>
+ * 坐标与列的统计量（首块 x1、末块 x2、宽度均值）都保存在原始数组中并在加入区域块时增量更新，
+ * 判断一个区域块能否并入某列只需常数时间，不再为每次判断遍历列内所有区域块
  */
 public class ColumnDetector {
 
     public static Map<Integer, List<RegionBlock>> detectColumns(List<RegionBlock> texts) {
+        BlockTable table = new BlockTable(texts);
+        int[] ids = table.ids();
+        Columns columns = detectColumns(table, ids);
+        // 存储列的文本块
+        Map<Integer, List<RegionBlock>> columnsMap = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            columnsMap.computeIfAbsent(columns.columnOf[i], col -> new ArrayList<>()).add(texts.get(i));
+        }
+        return columnsMap;
+    }
+
+    /**
+     * 按 ids 的顺序把区域块分到各列
+     */
+    static Columns detectColumns(BlockTable table, int[] ids) {
+        int count = ids.length;
         // 存储每个文本块的 x1 和 x2
-        List<Float> xStarts = new ArrayList<>();
-        List<Float> xEnds = new ArrayList<>();
-
-        for (RegionBlock text : texts) {
-            float x1 = text.getBbox()[0];
-            float x2 = text.getBbox()[2];
-            xStarts.add(x1);
-            xEnds.add(x2);
+        float[] xStarts = new float[count];
+        float[] xEnds = new float[count];
+        for (int i = 0; i < count; i++) {
+            xStarts[i] = table.x1[ids[i]];
+            xEnds[i] = table.x2[ids[i]];
+        }
+        float averageGap = averageGap(xStarts.clone(), xEnds.clone());
+
+        ColumnStats columns = new ColumnStats(count);
+        int[] columnOf = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            float x1 = xStarts[i];
+            float x2 = xEnds[i];
+            // 按建列顺序查找第一个可并入的列
+            int target = -1;
+            for (int col = 0; col < columns.size; col++) {
+                if (isOverlap(x1, x2, columns.start[col], columns.end[col], averageGap)
+                        || shouldMergeColumns(columns, col, x1, x2, averageGap)) {
+                    target = col;
+                    break;
+                }
+            }
+
+            // 如果没有找到合适的列，则新建一列
+            if (target < 0) {
+                target = columns.size;
+            }
+            columns.add(target, x1, x2);
+            columnOf[i] = target;
         }
+        return new Columns(columns.size, columnOf);
+    }
 
+    /**
+     * 排序后相邻文本块之间的平均间距（只考虑大于 10 的间距），最大为 20
+     */
+    private static float averageGap(float[] sortedStarts, float[] sortedEnds) {
         // 排序文本块的 x1 和 x2
-        List<Float> sortedStarts = new ArrayList<>(xStarts);
-        List<Float> sortedEnds = new ArrayList<>(xEnds);
-        Collections.sort(sortedStarts);
-        Collections.sort(sortedEnds);
+        Arrays.sort(sortedStarts);
+        Arrays.sort(sortedEnds);
 
         // 计算文本块之间的间距（忽略异常值）
-        List<Float> gaps = new ArrayList<>();
-        for (int i = 1; i < sortedStarts.size(); i++) {
-            float gap = sortedStarts.get(i) - sortedEnds.get(i - 1);
+        double[] gaps = new double[Math.max(sortedStarts.length - 1, 0)];
+        int gapCount = 0;
+        for (int i = 1; i < sortedStarts.length; i++) {
+            float gap = sortedStarts[i] - sortedEnds[i - 1];
             // 排除间距过大的情况，比如页面空白部分
             // 只考虑合理的间距
             if (gap > 10) {
-                gaps.add(gap);
+                gaps[gapCount++] = gap;
             }
         }
 
         // 计算平均间距（稳定性更高）
-        float averageGap = (float) gaps.stream().mapToDouble(Float::doubleValue).average().orElse(0);
+        float averageGap = (float) Arrays.stream(gaps, 0, gapCount).average().orElse(0);
         // 阈值最大为20
-        averageGap = Math.min(averageGap, 20f);
-
-        // 存储列的文本块
-        Map<Integer, List<RegionBlock>> columnsMap = new HashMap<>();
-        int columnIndex = 0;
-
-        for (RegionBlock text : texts) {
-            boolean assigned = false;
-            // 遍历现有列，判断当前文本块是否应该归入其中
-            for (Map.Entry<Integer, List<RegionBlock>> entry : columnsMap.entrySet()) {
-                List<RegionBlock> column = entry.getValue();
-                // 获取该列的范围（x1, x2）
-                float columnStart = column.get(0).getBbox()[0];
-                float columnEnd = column.get(column.size() - 1).getBbox()[2];
-
-                // 判断当前文本块是否与已有列重叠（间距小于平均间距）
-                if (isOverlap(text, columnStart, columnEnd, averageGap) || shouldMergeColumns(column, text, averageGap)) {
-                    column.add(text);
-                    assigned = true;
-                    break;
-                }
-            }
-
-            // 如果没有找到合适的列，则新建一列
-            if (!assigned) {
-                List<RegionBlock> newColumn = new ArrayList<>();
-                newColumn.add(text);
-                columnsMap.put(columnIndex++, newColumn);
-            }
-        }
-
-        // 返回列的 Map
-        return columnsMap;
+        return Math.min(averageGap, 20f);
     }
 
-    private static boolean isOverlap(RegionBlock text, float columnStart, float columnEnd, float adjustedThreshold) {
-        // 判断当前文本块是否与列的范围重叠
-        float x1 = text.getBbox()[0];
-        float x2 = text.getBbox()[2];
-
+    private static boolean isOverlap(float x1, float x2, float columnStart, float columnEnd, float adjustedThreshold) {
         // 如果文本块的范围与列的范围有交集，或者它们之间的间距小于调整后的阈值，则认为重叠
         return !(x2 + adjustedThreshold < columnStart || x1 - adjustedThreshold > columnEnd);
     }
 
     // 判断是否需要合并列
-    private static boolean shouldMergeColumns(List<RegionBlock> column, RegionBlock text, float averageGap) {
-        // 获取列的宽度和当前文本块的宽度
-        float columnWidth = column.get(column.size() - 1).getBbox()[2] - column.get(0).getBbox()[0];
-        float textWidth = text.getBbox()[2] - text.getBbox()[0];
+    private static boolean shouldMergeColumns(ColumnStats columns, int col, float x1, float x2, float averageGap) {
+        // 获取列的范围（首块 x1，末块 x2）和当前文本块的宽度
+        float columnStart = columns.start[col];
+        float columnEnd = columns.end[col];
+        float columnWidth = columnEnd - columnStart;
+        float textWidth = x2 - x1;
 
         // 计算当前列内的密集度：列内所有文本块的平均宽度
-        double averageColumnWidth = column.stream()
-                .map(b -> b.getBbox()[2] - b.getBbox()[0])
-                .mapToDouble(Float::doubleValue)
-                .average()
-                .orElse(0.0);
+        double averageColumnWidth = columns.averageWidth(col);
 
         // 容忍度：如果列内已有文本块密集，可能需要更宽松的合并条件
         double widthTolerance = Math.max(averageGap, averageColumnWidth * 0.4f);
@@ -104,15 +114,77 @@ public class ColumnDetector {
         // 1. 判断文本块宽度与列宽度差异
         boolean widthCondition = textWidth < columnWidth * 0.5f && Math.abs(columnWidth - textWidth) < widthTolerance;
 
-        // 2. 判断是否有足够重叠或接近
-        boolean overlapCondition = isOverlap(text, column.get(0).getBbox()[0], column.get(column.size() - 1).getBbox()[2], averageGap);
+        // 2. 判断文本块是否接近当前列的边界
+        boolean boundaryCondition = Math.abs(columnStart - x1) < widthTolerance || Math.abs(columnEnd - x2) < widthTolerance;
 
-        // 3. 判断文本块是否接近当前列的边界
-        float columnStart = column.get(0).getBbox()[0];
-        float columnEnd = column.get(column.size() - 1).getBbox()[2];
-        boolean boundaryCondition = Math.abs(columnStart - text.getBbox()[0]) < widthTolerance || Math.abs(columnEnd - text.getBbox()[2]) < widthTolerance;
+        // 与列范围重叠的情况已由 isOverlap 判断
+        return widthCondition || boundaryCondition;
+    }
+
+    /**
+     * 分列结果
+     *
+     * @param count    列数
+     * @param columnOf 每个区域块所在的列，与输入的 ids 一一对应
+     */
+    record Columns(int count, int[] columnOf) {
+    }
 
-        return (widthCondition || overlapCondition || boundaryCondition);
+    /**
+     * 各列的增量统计：首块 x1、末块 x2 及块宽度之和。
+     * 宽度之和采用与 DoubleStream.average 相同的补偿求和，均值与逐块求平均的结果一致
+     */
+    private static final class ColumnStats {
+
+        private final float[] start;
+        private final float[] end;
+        private final int[] blockCount;
+        private final double[] widthSum;
+        private final double[] widthCompensation;
+        /**
+         * 不做补偿的宽度之和，宽度含无穷大时补偿求和得到 NaN，此时改用该值
+         */
+        private final double[] widthPlainSum;
+        private int size;
+
+        ColumnStats(int capacity) {
+            this.start = new float[capacity];
+            this.end = new float[capacity];
+            this.blockCount = new int[capacity];
+            this.widthSum = new double[capacity];
+            this.widthCompensation = new double[capacity];
+            this.widthPlainSum = new double[capacity];
+        }
+
+        void add(int col, float x1, float x2) {
+            if (col == size) {
+                start[col] = x1;
+                size++;
+            }
+            end[col] = x2;
+            blockCount[col]++;
+            addWidth(col, x2 - x1);
+        }
+
+        /**
+         * Kahan 补偿求和的一步，复现 DoubleStream.average() 的累加方式
+         */
+        private void addWidth(int col, double width) {
+            double corrected = width - widthCompensation[col];
+            double compensated = widthSum[col] + corrected;
+            // 本次相加被舍去的低位，下次累加时补回
+            widthCompensation[col] = (compensated - widthSum[col]) - corrected;
+            widthSum[col] = compensated;
+            widthPlainSum[col] += width;
+        }
+
+        double averageWidth(int col) {
+            double sum = widthSum[col] - widthCompensation[col];
+            if (Double.isNaN(sum) && Double.isInfinite(widthPlainSum[col])) {
+                sum = widthPlainSum[col];
+            }
+            return sum / blockCount[col];
+        }
     }
 
 }
@@ -0,0 +1,76 @@
+package com.xu.layout.core;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * @author xuzc
+ * <p>
+ * 检测结果调试图像的采样策略，只有 drawPredictionsOutputDir 为绝对路径时才会绘制并保存
+ */
+@Getter
+@ToString
+public final class DebugDrawPolicy {
+
+    /**
+     * 每隔 interval 页保存一页，0 表示不按页采样
+     */
+    private final int interval;
+
+    /**
+     * 页面处理失败时保存推理结果
+     */
+    private final boolean onError;
+
+    private DebugDrawPolicy(int interval, boolean onError) {
+        this.interval = interval;
+        this.onError = onError;
+    }
+
+    /**
+     * 不绘制，生产环境使用
+     */
+    public static DebugDrawPolicy none() {
+        return new DebugDrawPolicy(0, false);
+    }
+
+    /**
+     * 每页都绘制
+     */
+    public static DebugDrawPolicy everyPage() {
+        return everyNthPage(1);
+    }
+
+    /**
+     * 页码（从 0 开始）能被 n 整除的页面绘制
+     */
+    public static DebugDrawPolicy everyNthPage(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        return new DebugDrawPolicy(n, false);
+    }
+
+    /**
+     * 只在页面推理之后的阶段失败时绘制推理结果
+     */
+    public static DebugDrawPolicy onError() {
+        return new DebugDrawPolicy(0, true);
+    }
+
+    /**
+     * 在按页采样的基础上，页面失败时也绘制
+     */
+    public DebugDrawPolicy withOnError() {
+        return new DebugDrawPolicy(interval, true);
+    }
+
+    public boolean isNone() {
+        return interval == 0 && !onError;
+    }
+
+    boolean shouldDraw(int pageIndex) {
+        return interval > 0 && pageIndex % interval == 0;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.xu.layout.core;
+
+import com.xu.layout.cache.PageCache;
+import com.xu.layout.metrics.PipelineListener;
+import lombok.Builder;
+import lombok.Getter;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+
+import java.util.function.IntPredicate;
+
+/**
+ * @author xuzc
+ * <p>
+ * LayoutExtractor 的运行参数
+ */
+@Getter
+@Builder(toBuilder = true)
+public class ExtractorOptions {
+
+    /**
+     * 推理及排序阶段的工作线程数，小于等于 1 时在调用线程上逐页串行处理
+     */
+    @Builder.Default
+    private int parallelism = 1;
+
+    /**
+     * 流水线中同时处理的最大页数，限制已渲染页面图像占用的内存
+     */
+    @Builder.Default
+    private int queueDepth = 4;
+
+    /**
+     * 页面图像缩放到模型输入尺寸的方式
+     */
+    @Builder.Default
+    private ResizeMode resizeMode = ResizeMode.STRETCH;
+
+    /**
+     * 使用 Soft-NMS（高斯衰减）代替标准非极大值抑制，相邻的表格、密集文本区域不易被互相抑制
+     */
+    @Builder.Default
+    private boolean softNms = false;
+
+    /**
+     * 页面渲染分辨率策略，默认固定 150 DPI
+     */
+    @Builder.Default
+    private RenderPolicy renderPolicy = RenderPolicy.fixed(RenderPolicy.BASE_DPI);
+
+    /**
+     * Figure 区域裁剪图的分辨率，高于页面渲染分辨率时按该 DPI 单独重新渲染区域
+     */
+    @Builder.Default
+    private float figureDpi = RenderPolicy.BASE_DPI;
+
+    /**
+     * Figure 区域图像的编码格式，默认 PNG 默认压缩级别；图像较多的文档可用 png(1) 降低编码耗时
+     */
+    @Builder.Default
+    private FigureEncoding figureEncoding = FigureEncoding.png();
+
+    /**
+     * Figure 区域图像的上传实现
+     */
+    @Builder.Default
+    private FigureResolver figureResolver = new DefaultFigureResolver();
+
+    /**
+     * 同时编码、上传中的 Figure 数量上限，达到上限时提取阶段等待，形成背压
+     */
+    @Builder.Default
+    private int figureConcurrency = 4;
+
+    /**
+     * 原生文本页快速路径：可见字形数不少于 minTextLayerGlyphs 的页面以灰度、允许图像降采样、
+     * 按模型输入尺寸的分辨率渲染；扫描页仍走完整渲染
+     */
+    @Builder.Default
+    private boolean textLayerFastPath = false;
+
+    @Builder.Default
+    private int minTextLayerGlyphs = 50;
+
+    /**
+     * 单页结果缓存，为 null 时不缓存；内容未变化的页面命中后跳过渲染、推理和文本提取。由调用方负责关闭
+     */
+    @Builder.Default
+    private PageCache pageCache = null;
+
+    /**
+     * PDF 加载时的内存策略，超大文档可使用临时文件或混合模式，避免整份 PDF 驻留堆内存
+     */
+    @Builder.Default
+    private MemoryUsageSetting memoryUsageSetting = MemoryUsageSetting.setupMainMemoryOnly();
+
+    /**
+     * 需要处理的页面（页码从 0 开始），未选中的页面不渲染也不检测
+     */
+    @Builder.Default
+    private IntPredicate pageFilter = pageIndex -> true;
+
+    /**
+     * 检测结果调试图像的采样策略，drawPredictionsOutputDir 为绝对路径时生效；生产环境可设为 none()
+     */
+    @Builder.Default
+    private DebugDrawPolicy debugDrawPolicy = DebugDrawPolicy.everyPage();
+
+    /**
+     * 流水线埋点：各阶段耗时、各标签检测数量及缓存命中，可使用 MetricsCollector、JfrPipelineListener 或自定义实现
+     */
+    @Builder.Default
+    private PipelineListener pipelineListener = PipelineListener.NONE;
+
+    public static ExtractorOptions defaults() {
+        return ExtractorOptions.builder().build();
+    }
+
+    public static class ExtractorOptionsBuilder {
+
+        /**
+         * 只处理 [fromPage, toPage) 范围内的页面，页码从 0 开始
+         */
+        public ExtractorOptionsBuilder pageRange(int fromPage, int toPage) {
+            return pageFilter(pageIndex -> pageIndex >= fromPage && pageIndex < toPage);
+        }
+
+        /**
+         * 只处理前 count 页
+         */
+        public ExtractorOptionsBuilder firstPages(int count) {
+            return pageRange(0, count);
+        }
+    }
+
+}
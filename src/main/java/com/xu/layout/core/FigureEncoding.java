@@ -0,0 +1,207 @@
+package com.xu.layout.core;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * @author xuzc
+ * <p>
+ * Figure 区域图像的编码格式及压缩参数。
+ * <p>
+ * 每个线程复用一个 ImageWriter；编码结果写入按图像尺寸预估容量的缓冲区，直接以该缓冲区构造输入流交给
+ * FigureResolver，不再经过 toByteArray 复制；写出时使用内存缓存的 ImageOutputStream，不产生临时文件
+ */
+@ToString(of = {"formatName", "extension", "compressionQuality"})
+public final class FigureEncoding {
+
+    /**
+     * 不设置压缩参数，使用编码器默认值
+     */
+    private static final float DEFAULT_QUALITY = -1f;
+
+    /**
+     * ImageIO 的格式名
+     */
+    @Getter
+    private final String formatName;
+
+    /**
+     * 上传文件名的扩展名
+     */
+    @Getter
+    private final String extension;
+
+    /**
+     * ImageWriteParam 的压缩质量，0~1，小于 0 时使用编码器默认值
+     */
+    @Getter
+    private final float compressionQuality;
+
+    /**
+     * 预估编码后每个像素分量的字节数，用于预分配输出缓冲区
+     */
+    private final float bytesPerSample;
+
+    private final ThreadLocal<Encoder> encoders;
+
+    private FigureEncoding(String formatName, String extension, float compressionQuality, float bytesPerSample) {
+        if (!ImageIO.getImageWritersByFormatName(formatName).hasNext()) {
+            throw new IllegalArgumentException("没有可用的 " + formatName + " 图像编码器");
+        }
+        this.formatName = formatName;
+        this.extension = extension;
+        this.compressionQuality = compressionQuality;
+        this.bytesPerSample = bytesPerSample;
+        this.encoders = ThreadLocal.withInitial(this::newEncoder);
+    }
+
+    /**
+     * PNG，编码器默认压缩级别，与 ImageIO.write 的输出一致
+     */
+    public static FigureEncoding png() {
+        return new FigureEncoding("png", "png", DEFAULT_QUALITY, 0.15f);
+    }
+
+    /**
+     * PNG，指定 deflate 压缩级别
+     *
+     * @param compressionLevel 0~9，0 不压缩，9 压缩率最高；图表类图像使用 1 时编码耗时约为默认级别的一半，体积相差不大
+     */
+    public static FigureEncoding png(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("compressionLevel 须在 0~9 之间: " + compressionLevel);
+        }
+        // PNG 编码器的压缩质量 q 对应 deflate 级别 9 * (1 - q)
+        return new FigureEncoding("png", "png", 1f - compressionLevel / 9f, compressionLevel == 0 ? 1f : 0.15f);
+    }
+
+    /**
+     * JPEG，有损压缩，适合照片类图像
+     *
+     * @param quality 0~1
+     */
+    public static FigureEncoding jpeg(float quality) {
+        return new FigureEncoding("jpeg", "jpg", checkQuality(quality), 0.05f);
+    }
+
+    /**
+     * 不压缩的 BMP，像素原样写出，编码开销最小，上传体积最大
+     */
+    public static FigureEncoding raw() {
+        return new FigureEncoding("bmp", "bmp", DEFAULT_QUALITY, 1f);
+    }
+
+    /**
+     * 按 ImageIO 格式名选择编码器，例如注册了 WebP 插件时使用 "webp"
+     *
+     * @param quality 0~1，小于 0 时使用编码器默认值
+     * @throws IllegalArgumentException 没有该格式的编码器
+     */
+    public static FigureEncoding of(String formatName, float quality) {
+        return new FigureEncoding(formatName, formatName.toLowerCase(), quality < 0 ? DEFAULT_QUALITY : checkQuality(quality), 0.15f);
+    }
+
+    private static float checkQuality(float quality) {
+        if (quality < 0 || quality > 1) {
+            throw new IllegalArgumentException("quality 须在 0~1 之间: " + quality);
+        }
+        return quality;
+    }
+
+    /**
+     * 在当前线程上编码图像
+     */
+    EncodedImage encode(BufferedImage image) throws IOException {
+        return encoders.get().encode(image);
+    }
+
+    private Encoder newEncoder() {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (compressionQuality >= 0 && param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            if (param.getCompressionType() == null) {
+                param.setCompressionType(param.getCompressionTypes()[0]);
+            }
+            param.setCompressionQuality(compressionQuality);
+        }
+        return new Encoder(writer, param);
+    }
+
+    /**
+     * 单线程使用的编码器及其写出参数
+     */
+    private final class Encoder {
+
+        private final ImageWriter writer;
+
+        private final ImageWriteParam param;
+
+        Encoder(ImageWriter writer, ImageWriteParam param) {
+            this.writer = writer;
+            this.param = param;
+        }
+
+        EncodedImage encode(BufferedImage image) throws IOException {
+            if (!writer.getOriginatingProvider().canEncodeImage(image)) {
+                // JPEG、BMP 不支持透明通道
+                image = toRgb(image);
+            }
+            int channels = image.getColorModel().getNumComponents();
+            // 文件头、调色板及行填充留出余量
+            long estimate = (long) ((long) image.getWidth() * image.getHeight() * channels * bytesPerSample) + 4L * image.getHeight() + 1078;
+            EncodedImage output = new EncodedImage((int) Math.min(estimate, Integer.MAX_VALUE - 8));
+            try (ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+                writer.setOutput(imageOutput);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.setOutput(null);
+            }
+            return output;
+        }
+
+        private BufferedImage toRgb(BufferedImage image) {
+            BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = rgb.createGraphics();
+            try {
+                graphics.drawImage(image, 0, 0, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            return rgb;
+        }
+    }
+
+    /**
+     * 编码结果，直接暴露内部缓冲区
+     */
+    static final class EncodedImage extends ByteArrayOutputStream {
+
+        EncodedImage(int capacity) {
+            super(capacity);
+        }
+
+        /**
+         * 以内部缓冲区构造输入流，不复制数据
+         */
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.xu.layout.core;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * @author xuzc
@@ -16,4 +18,25 @@ public interface FigureResolver {
      */
     String resolve(InputStream imageInputStream, String fileName, int byteSize);
 
+    /**
+     * 异步解析图像数据，默认在给定执行器上调用 {@link #resolve}；
+     * 支持非阻塞上传的实现可覆盖此方法，直接返回上传完成时结束的 future
+     *
+     * @param imageInputStream 图像的字节数据流
+     * @param fileName         上传文件名
+     * @param executor         LayoutExtractor 的 Figure 执行器，并发数受 figureConcurrency 限制
+     * @return 上传后的图像URL
+     */
+    default CompletableFuture<String> resolveAsync(InputStream imageInputStream, String fileName, int byteSize, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> resolve(imageInputStream, fileName, byteSize), executor);
+    }
+
+    /**
+     * 页面缓存指纹中的解析器标识：缓存的区域块内容包含 Figure 地址，解析目标不同的实现不能复用彼此的缓存。
+     * 默认为实现类名，同一实现可上传到不同目标时应覆盖此方法，把目标也计入标识
+     */
+    default String fingerprint() {
+        return getClass().getName();
+    }
+
 }
@@ -0,0 +1,54 @@
+package com.xu.layout.core;
+
+import com.xu.layout.metrics.PipelineListener;
+import com.xu.layout.metrics.PipelineStage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * @author xuzc
+ * <p>
+ * 隔离调用方监听器的异常，埋点失败只记录日志，不影响页面处理
+ */
+@Slf4j
+final class GuardedPipelineListener implements PipelineListener {
+
+    private final PipelineListener delegate;
+
+    private GuardedPipelineListener(PipelineListener delegate) {
+        this.delegate = delegate;
+    }
+
+    static PipelineListener of(PipelineListener listener) {
+        return listener == null || listener == PipelineListener.NONE ? PipelineListener.NONE : new GuardedPipelineListener(listener);
+    }
+
+    @Override
+    public void stageCompleted(int pageIndex, PipelineStage stage, long nanos) {
+        try {
+            delegate.stageCompleted(pageIndex, stage, nanos);
+        } catch (RuntimeException e) {
+            log.warn("流水线监听器回调失败, pageIndex: {}, stage: {}", pageIndex, stage, e);
+        }
+    }
+
+    @Override
+    public void detectionsCounted(int pageIndex, Map<String, Integer> labelCounts) {
+        try {
+            delegate.detectionsCounted(pageIndex, labelCounts);
+        } catch (RuntimeException e) {
+            log.warn("流水线监听器回调失败, pageIndex: {}", pageIndex, e);
+        }
+    }
+
+    @Override
+    public void pageCacheHit(int pageIndex) {
+        try {
+            delegate.pageCacheHit(pageIndex);
+        } catch (RuntimeException e) {
+            log.warn("流水线监听器回调失败, pageIndex: {}", pageIndex, e);
+        }
+    }
+
+}
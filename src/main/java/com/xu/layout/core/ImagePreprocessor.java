@@ -0,0 +1,268 @@
+package com.xu.layout.core;
+
+import java.awt.image.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * @author xuzc
+ * <p>
+ * 模型输入预处理：一次遍历完成双线性缩放（拉伸或 letterbox）、归一化和 HWC -> CHW 转置，
+ * 直接写入可复用的直接内存 FloatBuffer，不再生成中间图像和 float 数组
+ */
+public class ImagePreprocessor {
+
+    private static final float NORMALIZE = 1.0f / 255.0f;
+
+    private final int inputWidth;
+
+    private final int inputHeight;
+
+    /**
+     * 每个线程一份输入缓冲区和采样表，按需扩容，OnnxTensor 可直接引用缓冲区而无需再复制
+     */
+    private final ThreadLocal<Scratch> scratches;
+
+    public ImagePreprocessor(int inputWidth, int inputHeight) {
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.scratches = ThreadLocal.withInitial(() -> new Scratch(inputWidth));
+    }
+
+    public int getNumInputElements() {
+        return 3 * inputWidth * inputHeight;
+    }
+
+    /**
+     * 获取当前线程可容纳 batchSize 张图像的输入缓冲区，position 为 0，limit 为实际元素数
+     * <p>
+     * 缓冲区在同一线程的下一次调用时会被覆盖，调用方需在此之前用完基于它创建的张量
+     */
+    public FloatBuffer acquireBuffer(int batchSize) {
+        int elements = batchSize * getNumInputElements();
+        Scratch scratch = scratches.get();
+        if (scratch.buffer == null || scratch.buffer.capacity() < elements) {
+            scratch.buffer = ByteBuffer.allocateDirect(elements * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        FloatBuffer buffer = scratch.buffer;
+        buffer.clear();
+        buffer.limit(elements);
+        return buffer;
+    }
+
+    /**
+     * 按 geometry 将图像缩放到模型输入尺寸，归一化到 0-1 并以 CHW 格式写入 dest 的 offset 处，
+     * 内容区域之外写入填充值
+     * <p>
+     * 通道顺序为 B、G、R，与此前经 TYPE_3BYTE_BGR 中间图像转换得到的输入保持一致
+     */
+    public void preprocess(BufferedImage img, ResizeGeometry geometry, FloatBuffer dest, int offset) {
+        PixelReader reader = PixelReader.of(img);
+        int srcWidth = img.getWidth();
+        int srcHeight = img.getHeight();
+        int planeSize = inputWidth * inputHeight;
+        int padX = geometry.getPadX();
+        int padY = geometry.getPadY();
+        int contentWidth = geometry.getContentWidth();
+        int contentHeight = geometry.getContentHeight();
+
+        Scratch scratch = scratches.get();
+        int[] x0 = scratch.x0;
+        int[] x1 = scratch.x1;
+        float[] fx = scratch.fx;
+        int[] top = scratch.top;
+        int[] bottom = scratch.bottom;
+
+        // 预先计算内容区域每一列的采样位置，像素中心对齐，与 Java2D 双线性插值一致
+        float invScaleX = 1f / geometry.getScaleX();
+        for (int dx = 0; dx < contentWidth; dx++) {
+            float sx = Math.max((dx + 0.5f) * invScaleX - 0.5f, 0f);
+            x0[dx] = Math.min((int) sx, srcWidth - 1);
+            x1[dx] = Math.min(x0[dx] + 1, srcWidth - 1);
+            fx[dx] = sx - x0[dx];
+        }
+
+        float invScaleY = 1f / geometry.getScaleY();
+        for (int dy = 0; dy < inputHeight; dy++) {
+            int rowOffset = offset + dy * inputWidth;
+            int cy = dy - padY;
+            if (cy < 0 || cy >= contentHeight) {
+                fillPad(dest, rowOffset, 0, inputWidth, planeSize);
+                continue;
+            }
+            float sy = Math.max((cy + 0.5f) * invScaleY - 0.5f, 0f);
+            int y0 = Math.min((int) sy, srcHeight - 1);
+            int y1 = Math.min(y0 + 1, srcHeight - 1);
+            float fy = sy - y0;
+            reader.readRow(y0, x0, x1, contentWidth, top);
+            reader.readRow(y1, x0, x1, contentWidth, bottom);
+
+            fillPad(dest, rowOffset, 0, padX, planeSize);
+            int contentOffset = rowOffset + padX;
+            for (int dx = 0; dx < contentWidth; dx++) {
+                float wx = fx[dx];
+                int p = dx * 6;
+                for (int ch = 0; ch < 3; ch++) {
+                    float t = top[p + ch] + (top[p + 3 + ch] - top[p + ch]) * wx;
+                    float b = bottom[p + ch] + (bottom[p + 3 + ch] - bottom[p + ch]) * wx;
+                    dest.put(contentOffset + ch * planeSize + dx, (t + (b - t) * fy) * NORMALIZE);
+                }
+            }
+            fillPad(dest, rowOffset, padX + contentWidth, inputWidth, planeSize);
+        }
+    }
+
+    private static void fillPad(FloatBuffer dest, int rowOffset, int from, int to, int planeSize) {
+        for (int ch = 0; ch < 3; ch++) {
+            int base = rowOffset + ch * planeSize;
+            for (int dx = from; dx < to; dx++) {
+                dest.put(base + dx, ResizeGeometry.PAD_VALUE);
+            }
+        }
+    }
+
+    private static final class Scratch {
+
+        private FloatBuffer buffer;
+        private final int[] x0;
+        private final int[] x1;
+        private final float[] fx;
+        private final int[] top;
+        private final int[] bottom;
+
+        Scratch(int inputWidth) {
+            this.x0 = new int[inputWidth];
+            this.x1 = new int[inputWidth];
+            this.fx = new float[inputWidth];
+            this.top = new int[6 * inputWidth];
+            this.bottom = new int[6 * inputWidth];
+        }
+    }
+
+    /**
+     * 直接读取常见图像类型的底层数据，避免整页转换为 TYPE_3BYTE_BGR
+     */
+    private abstract static class PixelReader {
+
+        /**
+         * 读取第 y 行中前 count 个 x0[i]、x1[i] 像素的 B、G、R 分量，依次写入 out[i * 6 .. i * 6 + 5]
+         */
+        abstract void readRow(int y, int[] x0, int[] x1, int count, int[] out);
+
+        static PixelReader of(BufferedImage img) {
+            WritableRaster raster = img.getRaster();
+            SampleModel sampleModel = raster.getSampleModel();
+            DataBuffer dataBuffer = raster.getDataBuffer();
+            int tx = raster.getSampleModelTranslateX();
+            int ty = raster.getSampleModelTranslateY();
+            return switch (img.getType()) {
+                // PDFRenderer 默认输出 TYPE_INT_RGB
+                case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB ->
+                        new IntRgbReader(((DataBufferInt) dataBuffer).getData(), dataBuffer.getOffset(),
+                                ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride(), tx, ty);
+                case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY -> {
+                    ComponentSampleModel csm = (ComponentSampleModel) sampleModel;
+                    yield new ByteComponentReader(((DataBufferByte) dataBuffer).getData(), dataBuffer.getOffset(),
+                            csm.getScanlineStride(), csm.getPixelStride(), csm.getBandOffsets(), tx, ty);
+                }
+                default -> new GenericReader(img);
+            };
+        }
+    }
+
+    private static final class IntRgbReader extends PixelReader {
+
+        private final int[] data;
+        private final int offset;
+        private final int stride;
+
+        IntRgbReader(int[] data, int dataOffset, int stride, int tx, int ty) {
+            this.data = data;
+            this.stride = stride;
+            this.offset = dataOffset - ty * stride - tx;
+        }
+
+        @Override
+        void readRow(int y, int[] x0, int[] x1, int count, int[] out) {
+            int row = offset + y * stride;
+            for (int i = 0; i < count; i++) {
+                put(data[row + x0[i]], out, i * 6);
+                put(data[row + x1[i]], out, i * 6 + 3);
+            }
+        }
+
+        private static void put(int rgb, int[] out, int pos) {
+            out[pos] = rgb & 0xFF;
+            out[pos + 1] = (rgb >> 8) & 0xFF;
+            out[pos + 2] = (rgb >> 16) & 0xFF;
+        }
+    }
+
+    private static final class ByteComponentReader extends PixelReader {
+
+        private final byte[] data;
+        private final int offset;
+        private final int stride;
+        private final int pixelStride;
+        private final int blueOffset;
+        private final int greenOffset;
+        private final int redOffset;
+
+        ByteComponentReader(byte[] data, int dataOffset, int stride, int pixelStride, int[] bandOffsets, int tx, int ty) {
+            this.data = data;
+            this.stride = stride;
+            this.pixelStride = pixelStride;
+            this.offset = dataOffset - ty * stride - tx * pixelStride;
+            // 灰度图只有一个分量，三个通道取相同值
+            this.redOffset = bandOffsets[0];
+            this.greenOffset = bandOffsets.length > 1 ? bandOffsets[1] : bandOffsets[0];
+            this.blueOffset = bandOffsets.length > 2 ? bandOffsets[2] : bandOffsets[0];
+        }
+
+        @Override
+        void readRow(int y, int[] x0, int[] x1, int count, int[] out) {
+            int row = offset + y * stride;
+            for (int i = 0; i < count; i++) {
+                put(row + x0[i] * pixelStride, out, i * 6);
+                put(row + x1[i] * pixelStride, out, i * 6 + 3);
+            }
+        }
+
+        private void put(int pixel, int[] out, int pos) {
+            out[pos] = data[pixel + blueOffset] & 0xFF;
+            out[pos + 1] = data[pixel + greenOffset] & 0xFF;
+            out[pos + 2] = data[pixel + redOffset] & 0xFF;
+        }
+    }
+
+    /**
+     * 其他图像类型通过 getRGB 逐行读取，行缓冲在实例内复用
+     */
+    private static final class GenericReader extends PixelReader {
+
+        private final BufferedImage img;
+        private final int[] rowBuffer;
+
+        GenericReader(BufferedImage img) {
+            this.img = img;
+            this.rowBuffer = new int[img.getWidth()];
+        }
+
+        @Override
+        void readRow(int y, int[] x0, int[] x1, int count, int[] out) {
+            img.getRGB(0, y, rowBuffer.length, 1, rowBuffer, 0, rowBuffer.length);
+            for (int i = 0; i < count; i++) {
+                put(rowBuffer[x0[i]], out, i * 6);
+                put(rowBuffer[x1[i]], out, i * 6 + 3);
+            }
+        }
+
+        private static void put(int argb, int[] out, int pos) {
+            out[pos] = argb & 0xFF;
+            out[pos + 1] = (argb >> 8) & 0xFF;
+            out[pos + 2] = (argb >> 16) & 0xFF;
+        }
+    }
+
+}
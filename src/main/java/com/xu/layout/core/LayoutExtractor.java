@@ -1,50 +1,112 @@
 package com.xu.layout.core;
 
 import ai.onnxruntime.OrtException;
+import com.xu.layout.cache.CachedPage;
+import com.xu.layout.cache.PageCache;
+import com.xu.layout.cache.PageKeys;
+import com.xu.layout.entity.LayoutNode;
+import com.xu.layout.entity.PageGeometry;
+import com.xu.layout.entity.PageMode;
+import com.xu.layout.entity.PageResult;
 import com.xu.layout.entity.RegionBlock;
+import com.xu.layout.exception.LayoutExtractException;
 import com.xu.layout.exception.ModelException;
-import com.xu.layout.utils.ImageUtil;
+import com.xu.layout.metrics.PipelineListener;
+import com.xu.layout.metrics.PipelineStage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.pdfbox.text.PDFTextStripperByArea;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import static com.xu.layout.utils.Utils.generateUUID;
+import static com.xu.layout.utils.Utils.namedThreadFactory;
 
 /**
  * @author xuzc
  */
 @Slf4j
 @SuppressWarnings("unused")
-public class LayoutExtractor {
-
-    private final String drawPredictionsOutputDir;
+public class LayoutExtractor implements AutoCloseable {
 
     private final ModelDetection modelDetection;
 
+    private final ExtractorOptions options;
+
+    /**
+     * Figure 编码与上传，并发数与在途数量都受 figureConcurrency 限制
+     */
+    private final ExecutorService figureExecutor;
+
+    private final Semaphore figurePermits;
+
+    /**
+     * 流水线处理的线程池，在文档之间复用，线程上的预处理缓冲区、解码缓冲区随之复用；串行处理时为 null。
+     * pdfExecutor 上的任务按文档经 SerialExecutor 串行执行
+     */
+    private final ExecutorService pdfExecutor;
+
+    private final ExecutorService workerExecutor;
+
+    /**
+     * 检测结果调试图像，按 debugDrawPolicy 采样后在后台线程上绘制保存
+     */
+    private final PredictionDrawer predictionDrawer;
+
+    /**
+     * 流水线埋点，回调异常已被隔离
+     */
+    private final PipelineListener pipelineListener;
+
+    /**
+     * 模型与影响结果的参数指纹，参与页面缓存 key 的计算
+     */
+    private final String cacheFingerprint;
+
     public LayoutExtractor(String drawPredictionsOutputDir) {
-        this.drawPredictionsOutputDir = drawPredictionsOutputDir;
-        String modelPath = "yolov8n_layout_general6.onnx";
-        String labelPath = "labels.names";
-        modelDetection = buildModelDetection(modelPath, labelPath);
+        this(drawPredictionsOutputDir, "yolov8n_layout_general6.onnx", "labels.names");
     }
 
     public LayoutExtractor(String drawPredictionsOutputDir, String modelPath, String labelPath) {
-        this.drawPredictionsOutputDir = drawPredictionsOutputDir;
-        modelDetection = buildModelDetection(modelPath, labelPath);
+        this(drawPredictionsOutputDir, modelPath, labelPath, ExtractorOptions.defaults());
+    }
+
+    public LayoutExtractor(String drawPredictionsOutputDir, String modelPath, String labelPath, ExtractorOptions options) {
+        if (options.getQueueDepth() < 1) {
+            throw new IllegalArgumentException("queueDepth must be positive: " + options.getQueueDepth());
+        }
+        if (options.getFigureConcurrency() < 1) {
+            throw new IllegalArgumentException("figureConcurrency must be positive: " + options.getFigureConcurrency());
+        }
+        this.options = options;
+        modelDetection = buildModelDetection(modelPath, labelPath, options);
+        figureExecutor = Executors.newFixedThreadPool(options.getFigureConcurrency(), namedThreadFactory("layout4j-figure"));
+        figurePermits = new Semaphore(options.getFigureConcurrency());
+        if (options.getParallelism() > 1) {
+            pdfExecutor = Executors.newFixedThreadPool(options.getParallelism(), namedThreadFactory("layout4j-pdf"));
+            workerExecutor = Executors.newFixedThreadPool(options.getParallelism(), namedThreadFactory("layout4j-worker"));
+        } else {
+            pdfExecutor = null;
+            workerExecutor = null;
+        }
+        predictionDrawer = new PredictionDrawer(drawPredictionsOutputDir, options.getDebugDrawPolicy());
+        pipelineListener = GuardedPipelineListener.of(options.getPipelineListener());
+        cacheFingerprint = String.join("|", modelDetection.modelId, String.valueOf(modelDetection.labelNames),
+                String.valueOf(modelDetection.confThreshold), String.valueOf(modelDetection.iouThreshold),
+                String.valueOf(modelDetection.softNms),
+                String.valueOf(options.getResizeMode()), String.valueOf(options.getRenderPolicy()),
+                String.valueOf(options.isTextLayerFastPath()), String.valueOf(options.getMinTextLayerGlyphs()),
+                String.valueOf(options.getFigureDpi()), String.valueOf(options.getFigureEncoding()),
+                options.getFigureResolver().fingerprint());
     }
 
     /**
@@ -52,48 +114,343 @@ public class LayoutExtractor {
      * 该方法读取输入流中的 PDF 文件，并对每一页进行布局检测和内容提取
      *
      * @param inputStream PDF 文件的输入流
+     * @return 各页文本拼接结果，处理失败时返回空字符串
      */
     public String detectionPdf(InputStream inputStream) {
-        log.info("开始执行PDF 文件布局检测");
-        long startTime = Instant.now().toEpochMilli();
+        return collectContent(consumer -> detectionPdf(inputStream, consumer));
+    }
+
+    /**
+     * PDF 文件布局检测方法，按需从文件读取，不会把整份 PDF 读入内存
+     *
+     * @param file PDF 文件
+     * @return 各页文本拼接结果，处理失败时返回空字符串
+     */
+    public String detectionPdf(File file) {
+        return collectContent(consumer -> detectionPdf(file, consumer));
+    }
+
+    /**
+     * @see #detectionPdf(File)
+     */
+    public String detectionPdf(Path path) {
+        return detectionPdf(path.toFile());
+    }
+
+    /**
+     * PDF 文件布局检测方法，逐页回调检测结果
+     * <p>
+     * 结果按页码顺序在调用线程上回调，每页处理完成即可交给下游，不必等待整个文档结束；
+     * 已处理但尚未回调的页数受 queueDepth 限制，超大文档的内存占用保持有界
+     *
+     * @param inputStream PDF 文件的输入流
+     * @param consumer    单页结果的消费者
+     * @throws LayoutExtractException PDF 加载或任一页面处理失败
+     */
+    public void detectionPdf(InputStream inputStream, Consumer<PageResult> consumer) {
+        detectDocument(() -> PDDocument.load(inputStream, options.getMemoryUsageSetting()), consumer);
+    }
+
+    /**
+     * PDF 文件布局检测方法，逐页回调检测结果，按需从文件读取页面内容
+     *
+     * @param file     PDF 文件
+     * @param consumer 单页结果的消费者
+     * @throws LayoutExtractException PDF 加载或任一页面处理失败
+     * @see #detectionPdf(InputStream, Consumer)
+     */
+    public void detectionPdf(File file, Consumer<PageResult> consumer) {
+        detectDocument(() -> PDDocument.load(file, options.getMemoryUsageSetting()), consumer);
+    }
+
+    /**
+     * @see #detectionPdf(File, Consumer)
+     */
+    public void detectionPdf(Path path, Consumer<PageResult> consumer) {
+        detectionPdf(path.toFile(), consumer);
+    }
+
+    private String collectContent(Consumer<Consumer<PageResult>> detection) {
         StringBuilder stringBuilder = new StringBuilder();
-        try (PDDocument document = PDDocument.load(inputStream)) {
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            int pageCount = document.getNumberOfPages();
-            for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
-                PDPage page = document.getPage(pageIndex);
-                stringBuilder.append(detectPage(pdfRenderer, page, pageIndex));
-            }
-            log.info("PDF 文件布局检测结束, 耗时: {}ms", Instant.now().toEpochMilli() - startTime);
+        try {
+            detection.accept(pageResult -> stringBuilder.append(pageResult.getContent()));
             return stringBuilder.toString();
-        } catch (Exception e) {
+        } catch (LayoutExtractException e) {
             log.error(e.getMessage(), e);
         }
         return "";
     }
 
-    private String detectPage(PDFRenderer pdfRenderer, PDPage page, int pageIndex) {
-        // 将 PDF 页面渲染为图像
-        BufferedImage img;
+    private void detectDocument(DocumentLoader loader, Consumer<PageResult> consumer) {
+        log.info("开始执行PDF 文件布局检测");
+        long startTime = Instant.now().toEpochMilli();
+        try (PDDocument document = loader.load()) {
+            int[] pageIndices = IntStream.range(0, document.getNumberOfPages()).filter(options.getPageFilter()).toArray();
+            if (options.getParallelism() > 1) {
+                detectPagesPipelined(document, pageIndices, consumer);
+            } else {
+                detectPages(document, pageIndices, consumer);
+            }
+        } catch (IOException e) {
+            throw new LayoutExtractException("PDF 文件加载失败", e);
+        }
+        log.info("PDF 文件布局检测结束, 耗时: {}ms", Instant.now().toEpochMilli() - startTime);
+    }
+
+    /**
+     * 在调用线程上逐页串行处理
+     */
+    private void detectPages(PDDocument document, int[] pageIndices, Consumer<PageResult> consumer) {
+        PageRenderer pageRenderer = newPageRenderer(document);
+        PageKeys pageKeys = new PageKeys();
+        for (int pageIndex : pageIndices) {
+            PageResult pageResult;
+            try {
+                PageLookup lookup = lookupPage(document, pageKeys, pageIndex);
+                if (lookup.result() != null) {
+                    pageResult = lookup.result();
+                } else {
+                    PageContext context = detectPage(renderPage(pageRenderer, pageIndex));
+                    try {
+                        extractPage(context);
+                        try {
+                            context.figures.join();
+                        } catch (CompletionException e) {
+                            throw pageFailure(pageIndex, e.getCause());
+                        }
+                        pageResult = storePage(lookup.key(), layoutPage(context));
+                    } catch (RuntimeException e) {
+                        predictionDrawer.pageFailed(context, e);
+                        throw e;
+                    }
+                }
+            } catch (RuntimeException e) {
+                throw pageFailure(pageIndex, e);
+            }
+            consumer.accept(pageResult);
+        }
+    }
+
+    /**
+     * 流水线处理：渲染与文本提取都会访问 PDDocument，而 PDDocument 不是线程安全的，
+     * 因此同一文档的这两个阶段经 SerialExecutor 串行执行；模型推理与排序在工作线程池中并行执行。
+     * 最多 queueDepth 页处于处理中或等待回调，结果按页码顺序回调。
+     */
+    private void detectPagesPipelined(PDDocument document, int[] pageIndices, Consumer<PageResult> consumer) {
+        PageRenderer pageRenderer = newPageRenderer(document);
+        PageKeys pageKeys = new PageKeys();
+        SerialExecutor documentExecutor = new SerialExecutor(pdfExecutor);
+        // 滑动窗口，队首为下一个待回调的页面
+        Deque<CompletableFuture<PageResult>> window = new ArrayDeque<>(options.getQueueDepth());
+        int delivered = 0;
+        try {
+            for (int pageIndex : pageIndices) {
+                if (window.size() >= options.getQueueDepth()) {
+                    consumer.accept(awaitPage(window.poll(), pageIndices[delivered++]));
+                }
+                window.add(processPageAsync(document, pageKeys, pageRenderer, pageIndex, documentExecutor));
+            }
+            while (!window.isEmpty()) {
+                consumer.accept(awaitPage(window.poll(), pageIndices[delivered++]));
+            }
+        } finally {
+            window.forEach(pageFuture -> pageFuture.cancel(true));
+            // 页面失败或回调抛出异常时仍有任务在途，等待访问 PDDocument 的任务结束后才能关闭文档
+            documentExecutor.shutdownAndAwait();
+        }
+    }
+
+    /**
+     * 先在 PDF 线程上查询页面缓存，未命中时再进入渲染、推理、提取、排序流水线
+     */
+    private CompletableFuture<PageResult> processPageAsync(PDDocument document, PageKeys pageKeys, PageRenderer pageRenderer, int pageIndex,
+                                                           Executor documentExecutor) {
+        if (options.getPageCache() == null) {
+            return detectPageAsync(pageRenderer, pageIndex, documentExecutor);
+        }
+        return CompletableFuture
+                .supplyAsync(() -> lookupPage(document, pageKeys, pageIndex), documentExecutor)
+                .thenCompose(lookup -> lookup.result() != null
+                        ? CompletableFuture.completedFuture(lookup.result())
+                        : detectPageAsync(pageRenderer, pageIndex, documentExecutor)
+                        .thenApply(pageResult -> storePage(lookup.key(), pageResult)));
+    }
+
+    private CompletableFuture<PageResult> detectPageAsync(PageRenderer pageRenderer, int pageIndex, Executor documentExecutor) {
+        return CompletableFuture
+                .supplyAsync(() -> renderPage(pageRenderer, pageIndex), documentExecutor)
+                .thenApplyAsync(this::detectPage, workerExecutor)
+                .thenCompose(detected -> CompletableFuture
+                        .supplyAsync(() -> extractPage(detected), documentExecutor)
+                        // 等待本页 Figure 上传完成，不占用流水线线程
+                        .thenCompose(context -> context.figures.thenApply(v -> context))
+                        .thenApplyAsync(this::layoutPage, workerExecutor)
+                        .whenComplete((pageResult, e) -> {
+                            if (e != null) {
+                                predictionDrawer.pageFailed(detected, e);
+                            }
+                        }));
+    }
+
+    /**
+     * 计算页面缓存 key 并查询缓存，需在持有 PDDocument 的线程上执行；缓存读取失败按未命中处理
+     *
+     * @param pageKeys 当前文档的 key 计算器，页面间共享资源的摘要
+     */
+    private PageLookup lookupPage(PDDocument document, PageKeys pageKeys, int pageIndex) {
+        PageCache pageCache = options.getPageCache();
+        if (pageCache == null) {
+            return PageLookup.DISABLED;
+        }
+        PDPage page = document.getPage(pageIndex);
+        String key;
+        try {
+            key = pageKeys.key(page, cacheFingerprint);
+        } catch (IOException e) {
+            log.warn("页面缓存 key 计算失败, pageIndex: {}", pageIndex, e);
+            return PageLookup.DISABLED;
+        }
+        CachedPage cachedPage;
+        try {
+            cachedPage = pageCache.get(key);
+        } catch (RuntimeException e) {
+            log.warn("页面缓存读取失败, pageIndex: {}", pageIndex, e);
+            return new PageLookup(key, null);
+        }
+        if (cachedPage == null) {
+            return new PageLookup(key, null);
+        }
+        pipelineListener.pageCacheHit(pageIndex);
+        PageResult pageResult = PageResult.builder()
+                .pageIndex(pageIndex)
+                .pageMode(cachedPage.getPageMode())
+                .renderDpi(cachedPage.getRenderDpi())
+                .cached(true)
+                .pdfPage(page)
+                .imageWidth(cachedPage.getImageWidth())
+                .imageHeight(cachedPage.getImageHeight())
+                .blocks(cachedPage.getBlocks())
+                .layoutTree(cachedPage.getLayoutTree())
+                .build();
+        return new PageLookup(key, pageResult);
+    }
+
+    /**
+     * 写入页面缓存，写入失败不影响本次结果
+     */
+    private PageResult storePage(String key, PageResult pageResult) {
+        if (key != null) {
+            try {
+                options.getPageCache().put(key, new CachedPage(pageResult.getPageMode(), pageResult.getRenderDpi(),
+                        pageResult.getImageWidth(), pageResult.getImageHeight(), pageResult.getBlocks(), pageResult.getLayoutTree()));
+            } catch (RuntimeException e) {
+                log.warn("页面缓存写入失败, pageIndex: {}", pageResult.getPageIndex(), e);
+            }
+        }
+        return pageResult;
+    }
+
+    private PageResult awaitPage(CompletableFuture<PageResult> pageFuture, int pageIndex) {
         try {
-            // 设置DPI, 提高清晰度
-            img = pdfRenderer.renderImageWithDPI(pageIndex, 150);
-            // 执行布局检测
-            List<Detection> detections = detectLayout(modelDetection, img);
-            // 提取标签内容
-            List<RegionBlock> regionBlocks = extractPdfContents(img, page, pageIndex, detections);
-            // 排序
-            List<RegionBlock> sortRegionBlocks = LayoutParser.processLayout(regionBlocks);
-            String content = sortRegionBlocks.stream().map(RegionBlock::getSimpleContent).collect(Collectors.joining("\n"));
-            // 在图像上绘制检测结果并保存
-            drawPredictionsPage(img, pageIndex, sortRegionBlocks);
-            return content;
+            return pageFuture.join();
+        } catch (CompletionException e) {
+            throw pageFailure(pageIndex, e.getCause());
+        }
+    }
+
+    private LayoutExtractException pageFailure(int pageIndex, Throwable cause) {
+        if (cause instanceof LayoutExtractException) {
+            return (LayoutExtractException) cause;
+        }
+        return new LayoutExtractException("第 " + pageIndex + " 页处理失败", cause);
+    }
+
+    private PageRenderer newPageRenderer(PDDocument document) {
+        return new PageRenderer(document, options, modelDetection.inputWidth, modelDetection.inputHeight);
+    }
+
+    /**
+     * 将 PDF 页面渲染为图像，需在持有 PDDocument 的线程上执行
+     */
+    private PageContext renderPage(PageRenderer pageRenderer, int pageIndex) {
+        long startTime = System.nanoTime();
+        try {
+            PageContext context = pageRenderer.render(pageIndex);
+            context.renderMillis = recordStage(pageIndex, PipelineStage.RENDER, startTime);
+            return context;
         } catch (IOException e) {
-            log.error("detectPage错误， pageIndex: {}", pageIndex, e);
-            throw new RuntimeException(e);
+            throw new LayoutExtractException("第 " + pageIndex + " 页渲染失败", e);
         }
     }
 
+    private PageContext detectPage(PageContext context) {
+        long startTime = System.nanoTime();
+        // 执行布局检测
+        try {
+            context.detections = modelDetection.detectObjects(context.image, context.pageIndex, pipelineListener);
+        } catch (OrtException e) {
+            throw new LayoutExtractException("第 " + context.pageIndex + " 页模型推理失败", e);
+        }
+        context.detectMillis = elapsedMillis(startTime);
+        Map<String, Integer> labelCounts = new HashMap<>();
+        for (Detection detection : context.detections) {
+            labelCounts.merge(detection.getLabel(), 1, Integer::sum);
+        }
+        pipelineListener.detectionsCounted(context.pageIndex, labelCounts);
+        return context;
+    }
+
+    /**
+     * 提取标签内容，需在持有 PDDocument 的线程上执行
+     */
+    private PageContext extractPage(PageContext context) {
+        long startTime = System.nanoTime();
+        context.regionBlocks = extractPdfContents(context);
+        context.extractMillis = elapsedMillis(startTime);
+        return context;
+    }
+
+    private PageResult layoutPage(PageContext context) {
+        long startTime = System.nanoTime();
+        // 排序，构建页面布局树
+        LayoutNode layoutTree = LayoutParser.buildLayoutTree(context.regionBlocks);
+        List<RegionBlock> sortRegionBlocks = new ArrayList<>(context.regionBlocks.size());
+        layoutTree.preorderTraverse(sortRegionBlocks::add);
+        long layoutNanos = System.nanoTime() - startTime;
+        pipelineListener.stageCompleted(context.pageIndex, PipelineStage.LAYOUT, layoutNanos);
+        // 按采样策略在后台绘制检测结果并保存
+        predictionDrawer.pageCompleted(context, sortRegionBlocks);
+        return PageResult.builder()
+                .pageIndex(context.pageIndex)
+                .pageMode(context.mode)
+                .renderDpi(context.dpi)
+                .geometry(context.geometry)
+                .imageWidth(context.image.getWidth())
+                .imageHeight(context.image.getHeight())
+                .blocks(sortRegionBlocks)
+                .layoutTree(layoutTree)
+                .renderMillis(context.renderMillis)
+                .detectMillis(context.detectMillis)
+                .extractMillis(context.extractMillis)
+                .layoutMillis(TimeUnit.NANOSECONDS.toMillis(layoutNanos))
+                .build();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 向监听器报告阶段耗时
+     *
+     * @return 耗时（毫秒）
+     */
+    private long recordStage(int pageIndex, PipelineStage stage, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        pipelineListener.stageCompleted(pageIndex, stage, nanos);
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
     /**
      * 布局检测逻辑
      */
@@ -117,36 +474,95 @@ public class LayoutExtractor {
      * @return 返回一个包含标签内容的列表
      */
     public List<RegionBlock> extractPdfContents(BufferedImage img, PDPage page, int pageIndex, List<Detection> detections) {
+        PageContext context = new PageContext(pageIndex, page, PageGeometry.of(page), img, null, PageMode.FULL, RenderPolicy.BASE_DPI);
+        context.detections = detections;
+        List<RegionBlock> regionBlocks = extractPdfContents(context);
+        try {
+            context.figures.join();
+        } catch (CompletionException e) {
+            throw pageFailure(pageIndex, e.getCause());
+        }
+        return regionBlocks;
+    }
+
+    private List<RegionBlock> extractPdfContents(PageContext context) {
+        // 区域扩展的像素值以 150 DPI 为基准，按实际渲染分辨率缩放
+        int expandWidth = Math.round(40 * context.dpi / RenderPolicy.BASE_DPI);
+        int expandHeight = Math.round(5 * context.dpi / RenderPolicy.BASE_DPI);
+        // 非图像标签的边界框区域，整页一次性提取文本
+        List<Rectangle> textRects = new ArrayList<>();
+        for (Detection detection : context.detections) {
+            if (!"Figure".equals(detection.getLabel())) {
+                textRects.add(buildRect(detection, expandWidth, expandHeight));
+            }
+        }
+        long textStartTime = System.nanoTime();
+        List<String> texts = PdfTextExtractor.extractTextFromRegions(context.image, textRects, context.pageIndex, context.page);
+        recordStage(context.pageIndex, PipelineStage.TEXT_EXTRACTION, textStartTime);
         // 初始化标签内容列表
-        List<RegionBlock> regionBlocks = new ArrayList<>();
-        // 对检测结果进行布局排序，以符合页面上的实际排列顺序
+        List<RegionBlock> regionBlocks = new ArrayList<>(context.detections.size());
+        List<CompletableFuture<?>> figureFutures = new ArrayList<>();
+        int textIndex = 0;
         // 遍历每个检测结果，提取其内容或图像URL
-        for (Detection detection : detections) {
+        for (Detection detection : context.detections) {
+            RegionBlock regionBlock = new RegionBlock(detection.getLabel(), detection.getLabelIndex(), null, detection.getBbox(), detection.getConfidence());
+            if (!"Figure".equals(detection.getLabel())) {
+                regionBlock.setContent(texts.get(textIndex++));
+            } else {
+                // 边界框区域
+                Rectangle rect = buildRect(detection, 0, 0);
+                // 对于图像标签，异步上传图像，完成后写入URL
+                figureFutures.add(uploadImage(context.pageIndex, figureImage(context, rect))
+                        .thenAccept(url -> regionBlock.setContent(String.format("<img src=\"%s\" /> \n", url))));
+            }
             // 将提取到的内容添加到标签内容列表中
-            regionBlocks.add(extractContentFromRect(img, detection, page, pageIndex));
+            regionBlocks.add(regionBlock);
         }
+        context.figures = CompletableFuture.allOf(figureFutures.toArray(new CompletableFuture<?>[0]));
         // 返回标签内容列表
         return regionBlocks;
     }
 
-    private RegionBlock extractContentFromRect(BufferedImage img, Detection detection, PDPage page, int pageIndex) {
-        // 获取检测结果的标签
-        String label = detection.getLabel();
-        String content;
-        // 非图像标签的内容提取
-        if (!"Figure".equals(label)) {
-            // 边界框区域
-            Rectangle rect = buildRect(detection, 40, 5);
-            // 从指定区域提取文本内容
-            content = extractTextFromRegion(img, rect, pageIndex, page);
-        } else {
-            // 边界框区域
-            Rectangle rect = buildRect(detection, 0, 0);
-            // 对于图像标签，上传图像并获取URL
-            content = String.format("<img src=\"%s\" /> \n", uploadImage(rect, img, pageIndex));
+    /**
+     * 获取 Figure 区域图像：figureDpi 高于页面渲染分辨率或页面为灰度快速渲染时只重新渲染该区域，
+     * 否则直接从页面图像裁剪。需在持有 PDDocument 的线程上执行
+     */
+    private BufferedImage figureImage(PageContext context, Rectangle rect) {
+        long startTime = System.nanoTime();
+        try {
+            return renderFigure(context, rect);
+        } finally {
+            recordStage(context.pageIndex, PipelineStage.FIGURE_RENDER, startTime);
         }
-        // 将提取到的内容添加到标签内容列表中
-        return new RegionBlock(label, detection.getLabelIndex(), content, detection.getBbox(), detection.getConfidence());
+    }
+
+    private BufferedImage renderFigure(PageContext context, Rectangle rect) {
+        float figureDpi = Math.max(options.getFigureDpi(), context.dpi);
+        if (context.renderer == null || (figureDpi <= context.dpi && context.mode == PageMode.FULL)) {
+            // 裁剪指定区域，限制在图像范围内且至少 1 像素
+            int x = Math.min(Math.max(rect.x, 0), context.image.getWidth() - 1);
+            int y = Math.min(Math.max(rect.y, 0), context.image.getHeight() - 1);
+            int width = Math.max(1, Math.min(rect.width, context.image.getWidth() - x));
+            int height = Math.max(1, Math.min(rect.height, context.image.getHeight() - y));
+            return context.image.getSubimage(x, y, width, height);
+        }
+        float ratio = figureDpi / context.dpi;
+        int width = Math.max(1, Math.round(rect.width * ratio));
+        int height = Math.max(1, Math.round(rect.height * ratio));
+        BufferedImage figure = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = figure.createGraphics();
+        try {
+            graphics.setBackground(Color.WHITE);
+            graphics.clearRect(0, 0, width, height);
+            // 平移到区域左上角，超出图像的部分被裁掉
+            graphics.translate(-rect.x * ratio, -rect.y * ratio);
+            context.renderer.renderPageToGraphics(context.pageIndex, graphics, figureDpi / 72f);
+        } catch (IOException e) {
+            throw new LayoutExtractException("第 " + context.pageIndex + " 页 Figure 区域渲染失败", e);
+        } finally {
+            graphics.dispose();
+        }
+        return figure;
     }
 
     /**
@@ -155,14 +571,15 @@ public class LayoutExtractor {
      *
      * @param modelPath 模型文件路径
      * @param labelPath 标签文件路径
+     * @param options   运行参数
      * @return 返回一个构建好的模型检测对象
      * @throws ModelException 如果模型或标签文件加载失败，则抛出此异常
      */
-    private ModelDetection buildModelDetection(String modelPath, String labelPath) {
+    private ModelDetection buildModelDetection(String modelPath, String labelPath, ExtractorOptions options) {
         ModelDetection modelDetection;
         try {
             // 尝试使用给定的模型和标签路径构建模型检测对象
-            modelDetection = new ModelDetection(modelPath, labelPath);
+            modelDetection = new ModelDetection(modelPath, labelPath, 0.3f, 0.5f, options.getResizeMode(), options.isSoftNms());
         } catch (Exception e) {
             // 如果构建过程中发生异常，抛出自定义的模型异常
             throw new ModelException(e);
@@ -171,98 +588,85 @@ public class LayoutExtractor {
     }
 
     /**
-     * 使用 ImageUploader 实现的上传图片方法
+     * 异步编码并上传图像，同时在途的数量达到 figureConcurrency 时阻塞调用线程
      */
-    private String uploadImage(Rectangle rect, BufferedImage img, int pageIndex) {
-        // 裁剪指定区域
-        BufferedImage subImage = img.getSubimage(rect.x, rect.y, rect.width, rect.height);
-        // 将 BufferedImage 转为字节数组
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    private CompletableFuture<String> uploadImage(int pageIndex, BufferedImage subImage) {
+        try {
+            figurePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LayoutExtractException("等待 Figure 上传被中断", e);
+        }
+        CompletableFuture<String> upload;
+        try {
+            FigureEncoding encoding = options.getFigureEncoding();
+            upload = CompletableFuture
+                    .supplyAsync(() -> {
+                        long startTime = System.nanoTime();
+                        FigureEncoding.EncodedImage imageData = encodeImage(encoding, subImage);
+                        recordStage(pageIndex, PipelineStage.FIGURE_ENCODE, startTime);
+                        return imageData;
+                    }, figureExecutor)
+                    .thenCompose(imageData -> {
+                        long startTime = System.nanoTime();
+                        return options.getFigureResolver().resolveAsync(imageData.toInputStream(),
+                                        generateUUID() + "_figure." + encoding.getExtension(), imageData.size(), figureExecutor)
+                                .whenComplete((url, e) -> {
+                                    if (e == null) {
+                                        recordStage(pageIndex, PipelineStage.FIGURE_RESOLVE, startTime);
+                                    }
+                                });
+                    });
+        } catch (RuntimeException e) {
+            figurePermits.release();
+            throw e;
+        }
+        upload.whenComplete((url, e) -> figurePermits.release());
+        return upload;
+    }
+
+    private static FigureEncoding.EncodedImage encodeImage(FigureEncoding encoding, BufferedImage subImage) {
         try {
-            ImageIO.write(subImage, "png", baos);
-            byte[] imageData = baos.toByteArray();
-            FigureResolver figureResolver = new DefaultFigureResolver();
-            return figureResolver.resolve(new ByteArrayInputStream(imageData), generateUUID() + "_figure.png", imageData.length);
+            return encoding.encode(subImage);
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            throw new UncheckedIOException(e);
         }
     }
 
     /**
-     * 下载检测过的文档页图片，方便对比
+     * 释放模型会话占用的本地内存，停止流水线及 Figure 上传线程，等待已提交的调试图像写出
      */
-    private void drawPredictionsPage(BufferedImage img, int pageIndex, List<RegionBlock> regionBlocks) {
-        ImageUtil.drawPredictions(img, regionBlocks);
-        Path path = Paths.get(drawPredictionsOutputDir, pageIndex + "---" + generateUUID() + "_detected.png");
-        if (path.isAbsolute()) {
-            try {
-                ImageIO.write(img, "png", new File(path.toString()));
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+    @Override
+    public void close() {
+        figureExecutor.shutdownNow();
+        if (pdfExecutor != null) {
+            pdfExecutor.shutdownNow();
+            workerExecutor.shutdownNow();
+        }
+        predictionDrawer.close();
+        try {
+            modelDetection.close();
+        } catch (OrtException e) {
+            throw new ModelException(e);
         }
     }
 
     /**
      * Extracts text from a specified region of a PDF page.
-     * <p>
-     * This method maps an image region to a PDF page region, then uses PDFTextStripperByArea to extract text from that region.
      *
-     * @param img        The image matrix, used to determine the size of the region.
-     * @param matRect    The rectangle defining the region in the image.
-     * @param pageNumber The page number of the PDF document, 0-based.
-     * @param page       The PDPage object representing the PDF page.
-     * @return The text extracted from the specified region.
+     * @see PdfTextExtractor#extractTextFromRegion(BufferedImage, Rectangle, int, PDPage)
      */
     public String extractTextFromRegion(BufferedImage img, Rectangle matRect, int pageNumber, PDPage page) {
-        // Map the image region to a PDF rectangle
-        Rectangle region = mapMatToPDFRectangle(img, matRect, page);
-        // Create a PDFTextStripperByArea instance
-        PDFTextStripperByArea stripper;
-        try {
-            stripper = new PDFTextStripperByArea();
-            // Add the region from which you want to extract text (pass the Rectangle region)
-            stripper.addRegion("textRegion", region);
-            // Set the page range (start and end page) for text extraction
-            stripper.setStartPage(pageNumber + 1);  // PDFBox uses 1-based page numbers
-            stripper.setEndPage(pageNumber + 1);  // Same for end page
-            // Extract text from the specified region
-            stripper.extractRegions(page);
-            // Get the extracted text from the region
-            return stripper.getTextForRegion("textRegion");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return PdfTextExtractor.extractTextFromRegion(img, matRect, pageNumber, page);
     }
 
     /**
-     * Maps a rectangle in image coordinates to a PDF coordinate rectangle, ensuring the rectangle
-     * does not exceed image boundaries.
+     * Maps a rectangle in image coordinates to a PDF coordinate rectangle.
      *
-     * @param img     The image providing dimensions.
-     * @param matRect The rectangle in the image coordinates to be mapped.
-     * @param pdfPage The PDPage object used to get PDF page dimensions.
-     * @return A Rectangle object representing the mapped region in PDF coordinates.
+     * @see PdfTextExtractor#mapMatToPDFRectangle(BufferedImage, Rectangle, PDPage)
      */
     public Rectangle mapMatToPDFRectangle(BufferedImage img, Rectangle matRect, PDPage pdfPage) {
-        // 获取图像宽度和高度
-        int imageWidth = img.getWidth();
-        int imageHeight = img.getHeight();
-        // Get the PDF page dimensions
-        float pdfWidth = pdfPage.getMediaBox().getWidth();
-        float pdfHeight = pdfPage.getMediaBox().getHeight();
-
-        // Calculate the scaling factors
-        float scaleX = pdfWidth / imageWidth;
-        float scaleY = pdfHeight / imageHeight;
-
-        // Map the OpenCV Rect to the PDF coordinates
-        int x = (int) (matRect.x * scaleX);
-        int y = (int) (matRect.y * scaleY);
-        int width = (int) (matRect.width * scaleX);
-        int height = (int) (matRect.height * scaleY);
-
-        return new Rectangle(x, y, width, height);
+        return PdfTextExtractor.mapMatToPDFRectangle(img, matRect, pdfPage);
     }
 
     /**
@@ -287,4 +691,16 @@ public class LayoutExtractor {
         return new Rectangle(expandedX, expandedY, expandedWidth, expandedHeight);
     }
 
+    /**
+     * 页面缓存查询结果，key 为 null 表示不写入缓存，result 为 null 表示未命中
+     */
+    private record PageLookup(String key, PageResult result) {
+        static final PageLookup DISABLED = new PageLookup(null, null);
+    }
+
+    @FunctionalInterface
+    private interface DocumentLoader {
+        PDDocument load() throws IOException;
+    }
+
 }
@@ -1,10 +1,10 @@
 package com.xu.layout.core;
 
+import com.xu.layout.entity.LayoutNode;
 import com.xu.layout.entity.RegionBlock;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * @author xuzc
@@ -14,73 +14,110 @@ import java.util.stream.Collectors;
 @Slf4j
 public class LayoutParser {
 
-    private static final String TITLE = "Title";
-
     /**
      * 处理布局，移除重叠的小区域块并按坐标排序，然后按标题和非标题对区域块进行处理
      *
      * @param contentList 包含所有区域块的列表
-     * @return 处理后的区域块列表
+     * @return 处理后的区域块列表，即 {@link #buildLayoutTree} 的先序遍历结果
      */
     public static List<RegionBlock> processLayout(List<RegionBlock> contentList) {
+        List<RegionBlock> result = new ArrayList<>(contentList.size());
+        buildLayoutTree(contentList).preorderTraverse(result::add);
+        return result;
+    }
+
+    /**
+     * 构建页面布局树：页面 → 标题段落 → 列 → 区域块。
+     * 规整排版时页面下直接是各列；否则第一个标题之前的区域块、每个标题及其下的区域块各成一个段落，
+     * 不属于任何标题的区域块直接挂在页面下。
+     * 各阶段在页面的列式区域块表上按块 id 处理，构建节点时才取回 RegionBlock
+     *
+     * @param contentList 包含所有区域块的列表
+     * @return 页面根节点，先序遍历即阅读顺序
+     */
+    public static LayoutNode buildLayoutTree(List<RegionBlock> contentList) {
+        BlockTable table = new BlockTable(contentList);
+        LayoutNode page = new LayoutNode(LayoutNode.Type.PAGE, null);
         // 移除重叠的小区域块
-        List<RegionBlock> filteredList = OverlapBlockRemover.removeOverlappingSmallerBlocks(contentList);
+        int[] sortedIds = OverlapBlockRemover.removeOverlappingSmallerBlocks(table, table.ids());
 
-        // 按 y 坐标排序，处理标题
-        List<RegionBlock> sortedList = LayoutSorter.sortByYThenX(filteredList);
+        // 按 y 坐标排序，处理标题；分列同样基于排序后的顺序
+        LayoutSorter.sortByYThenX(table, sortedIds);
 
         // 检测是否为规整的排版布局
-        Map<Integer, List<RegionBlock>> columnRegionBlockMap = ColumnDetector.detectColumns(filteredList);
-        log.info("columns size: {}, {}", columnRegionBlockMap.size(), columnRegionBlockMap);
-        int columns = columnRegionBlockMap.size();
-        if (columns <= 5) {
-            // 如果是规整的一列、两列或三列排版，直接按列构建树
-            return TitleBlockProcessor.processAndTraverse(columnRegionBlockMap);
+        ColumnDetector.Columns columns = ColumnDetector.detectColumns(table, sortedIds);
+        log.info("columns size: {}", columns.count());
+        if (log.isDebugEnabled()) {
+            log.debug("columns: {}", ColumnDetector.detectColumns(table.toBlocks(sortedIds)));
+        }
+        if (columns.count() <= 5) {
+            // 如果是规整的一列、两列或三列排版，直接按列排列
+            addColumns(page, table, sortedIds, columns);
+            return page;
         }
         // 如果不是规整排版，则继续处理标题块的逻辑
-        // 用于存储已处理的区域块，以避免重复处理
-        Set<RegionBlock> processedBlocks = new HashSet<>();
-        // 用于存储标题前的区域块
-        List<RegionBlock> firstProcessList = new ArrayList<>();
+        // 按块 id 记录已处理的区域块，以避免重复处理；值相等的重复区域块各自独立记录
+        BitSet processedBlocks = new BitSet(table.size());
 
         // 处理标题前的区域块
-        for (RegionBlock content : sortedList) {
-            if (!TITLE.equalsIgnoreCase(content.getLabel())) {
-                firstProcessList.add(content);
-                processedBlocks.add(content);
-            } else {
-                break;
-            }
+        int leading = 0;
+        while (leading < sortedIds.length && !table.title[sortedIds[leading]]) {
+            processedBlocks.set(sortedIds[leading]);
+            leading++;
+        }
+        if (leading > 0) {
+            LayoutNode section = new LayoutNode(LayoutNode.Type.SECTION, null);
+            addColumns(section, table, Arrays.copyOf(sortedIds, leading));
+            page.addChild(section);
         }
 
-        // 处理并返回结果
-        Map<Integer, List<RegionBlock>> firstProcessLBlockMap = ColumnDetector.detectColumns(firstProcessList);
-        List<RegionBlock> preTitleBlocks = TitleBlockProcessor.processAndTraverse(firstProcessLBlockMap);
-        List<RegionBlock> result = new ArrayList<>(preTitleBlocks);
+        // 提取所有标题及非标题区域块
+        int[] titleIds = Arrays.stream(sortedIds).filter(id -> table.title[id]).toArray();
+        int[] textIds = Arrays.stream(sortedIds).filter(id -> !table.title[id]).toArray();
+        for (int titleId : titleIds) {
+            processedBlocks.set(titleId);
+        }
 
-        // 提取所有标题
-        List<RegionBlock> titles = sortedList.stream().filter(lc -> TITLE.equalsIgnoreCase(lc.getLabel())).collect(Collectors.toList());
-        processedBlocks.addAll(titles);
+        // 一次性把非标题区域块分配到所属的标题下，再逐个标题按列排列
+        int[][] textsUnderTitles = TitleBlockProcessor.groupUnderTitles(table, titleIds, textIds);
+        for (int i = 0; i < titleIds.length; i++) {
+            int[] textsUnderTitle = textsUnderTitles[i];
+            for (int textId : textsUnderTitle) {
+                processedBlocks.set(textId);
+            }
+            LayoutNode section = new LayoutNode(LayoutNode.Type.SECTION, table.block(titleIds[i]));
+            addColumns(section, table, textsUnderTitle);
+            page.addChild(section);
+        }
 
-        // 遍历处理每个标题下的内容
-        for (int i = 0; i < titles.size(); i++) {
-            RegionBlock title = titles.get(i);
-            int current = i;
-            // 筛选属于当前标题下的区域块
-            List<RegionBlock> textsUnderTitle = sortedList.stream().filter(lc -> !TITLE.equalsIgnoreCase(lc.getLabel())).filter(lc -> TitleBlockProcessor.isUnderTitle(title, lc, titles.subList(current + 1, titles.size()))).collect(Collectors.toList());
-            processedBlocks.addAll(textsUnderTitle);
-            // 处理当前标题下的区域块并添加到结果中
-            Map<Integer, List<RegionBlock>> textsUnderTitleBlockMap = ColumnDetector.detectColumns(textsUnderTitle);
-            List<RegionBlock> titleBlocks = TitleBlockProcessor.processAndTraverse(textsUnderTitleBlockMap, title);
-            result.addAll(titleBlocks);
+        // 将未处理的区域块添加到结果中
+        for (int id : sortedIds) {
+            if (!processedBlocks.get(id)) {
+                page.addChild(new LayoutNode(table.block(id)));
+            }
         }
+        return page;
+    }
 
-        // 处理未被处理的区域块
-        List<RegionBlock> unprocessedBlocks = sortedList.stream().filter(lc -> !processedBlocks.contains(lc)).toList();
+    /**
+     * 分列后按列挂到 parent 下，列内保持 ids 中的顺序
+     */
+    private static void addColumns(LayoutNode parent, BlockTable table, int[] ids) {
+        if (ids.length > 0) {
+            addColumns(parent, table, ids, ColumnDetector.detectColumns(table, ids));
+        }
+    }
 
-        // 将未处理的区域块添加到结果中
-        result.addAll(unprocessedBlocks);
-        return result;
+    private static void addColumns(LayoutNode parent, BlockTable table, int[] ids, ColumnDetector.Columns columns) {
+        LayoutNode[] columnNodes = new LayoutNode[columns.count()];
+        for (int col = 0; col < columnNodes.length; col++) {
+            columnNodes[col] = new LayoutNode(LayoutNode.Type.COLUMN, null);
+            parent.addChild(columnNodes[col]);
+        }
+        int[] columnOf = columns.columnOf();
+        for (int i = 0; i < ids.length; i++) {
+            columnNodes[columnOf[i]].addChild(new LayoutNode(table.block(ids[i])));
+        }
     }
 
 }
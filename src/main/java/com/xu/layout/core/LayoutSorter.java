@@ -2,6 +2,7 @@ package com.xu.layout.core;
 
 import com.xu.layout.entity.RegionBlock;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -31,4 +32,26 @@ public class LayoutSorter {
         return contentList;
     }
 
+    /**
+     * 与 {@link #sortByYThenX(List)} 相同的排序，原地重排块 id。
+     * 行内误差使比较不满足传递性，结果依赖排序算法本身，因此仍使用 List.sort 所用的 TimSort
+     */
+    static void sortByYThenX(BlockTable table, int[] ids) {
+        Integer[] boxedIds = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            boxedIds[i] = ids[i];
+        }
+        Arrays.sort(boxedIds, (id1, id2) -> {
+            double y1 = table.y1[id1];
+            double y2 = table.y1[id2];
+            if (Math.abs(y1 - y2) <= Y_THRESHOLD) {
+                return Double.compare(table.x1[id1], table.x1[id2]);
+            }
+            return Double.compare(y1, y2);
+        });
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = boxedIds[i];
+        }
+    }
+
 }
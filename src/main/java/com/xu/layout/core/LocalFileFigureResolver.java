@@ -0,0 +1,44 @@
+package com.xu.layout.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * @author xuzc
+ * <p>
+ * 将图像保存到本地目录，返回文件 URI，用于测试及本地部署
+ */
+public class LocalFileFigureResolver implements FigureResolver {
+
+    private final Path directory;
+
+    public LocalFileFigureResolver(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String resolve(InputStream imageInputStream, String fileName, int byteSize) {
+        Path target = directory.resolve(fileName);
+        try {
+            Files.copy(imageInputStream, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return target.toUri().toString();
+    }
+
+    @Override
+    public String fingerprint() {
+        return getClass().getName() + ":" + directory.toAbsolutePath().normalize();
+    }
+
+}
@@ -2,28 +2,32 @@ package com.xu.layout.core;
 
 import ai.onnxruntime.*;
 import cn.hutool.core.io.resource.ResourceUtil;
-import com.xu.layout.utils.ImageUtil;
+import com.xu.layout.cache.PageKeys;
+import com.xu.layout.metrics.PipelineListener;
+import com.xu.layout.metrics.PipelineStage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.FloatBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author xuzc
+ * <p>
+ * 模型检测，实例无每次调用的状态，同一个 OrtSession 可被多个线程并发使用
  */
 @Slf4j
-public class ModelDetection {
+public class ModelDetection implements AutoCloseable {
 
     float confThreshold;
     float iouThreshold;
+    boolean softNms;
     int inputHeight;
     int inputWidth;
     long[] inputShape;
@@ -33,21 +37,48 @@ public class ModelDetection {
     OrtSession session;
     String inputName;
     String outputName;
+    ImagePreprocessor preprocessor;
+    ResizeMode resizeMode;
+    YoloOutputDecoder decoder;
 
-    long rawImgHeight;
-    long rawImgWidth;
+    /**
+     * 按页面尺寸缓存的缩放几何，同一文档的页面尺寸通常相同
+     */
+    private final Map<Long, ResizeGeometry> geometryCache = new ConcurrentHashMap<>();
+
+    private static final int MAX_CACHED_GEOMETRIES = 64;
 
     public List<String> labelNames;
 
+    /**
+     * 模型文件内容的 SHA-256，用于页面缓存 key
+     */
+    String modelId;
+
     public ModelDetection(String modelPath, String labelPath) throws OrtException {
         this(modelPath, labelPath, 0.3f, 0.5f);
     }
 
     public ModelDetection(String modelPath, String labelPath, float confThres, float iouThres) throws OrtException {
+        this(modelPath, labelPath, confThres, iouThres, ResizeMode.STRETCH);
+    }
+
+    public ModelDetection(String modelPath, String labelPath, float confThres, float iouThres, ResizeMode resizeMode) throws OrtException {
+        this(modelPath, labelPath, confThres, iouThres, resizeMode, false);
+    }
+
+    /**
+     * @param softNms 是否使用 Soft-NMS 代替标准非极大值抑制
+     */
+    public ModelDetection(String modelPath, String labelPath, float confThres, float iouThres, ResizeMode resizeMode,
+                          boolean softNms) throws OrtException {
         this.confThreshold = confThres;
         this.iouThreshold = iouThres;
+        this.resizeMode = resizeMode;
+        this.softNms = softNms;
         initializeModel(modelPath);
         initializeLabel(labelPath);
+        this.decoder = new YoloOutputDecoder(confThres, iouThres, labelNames, softNms);
     }
 
     private void initializeModel(String modelPath) throws OrtException {
@@ -56,16 +87,19 @@ public class ModelDetection {
 
     private void initializeModel(String modelPath, int gpuDeviceId) throws OrtException {
         this.env = OrtEnvironment.getEnvironment();
-        OrtSession.SessionOptions sessionOptions = new OrtSession.SessionOptions();
-        sessionOptions.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
-        if (gpuDeviceId >= 0) {
-            sessionOptions.addCPU(false);
-            sessionOptions.addCUDA(gpuDeviceId);
-        } else {
-            sessionOptions.addCPU(true);
+        // 会话创建后即可释放 SessionOptions 持有的本地内存
+        try (OrtSession.SessionOptions sessionOptions = new OrtSession.SessionOptions()) {
+            sessionOptions.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            if (gpuDeviceId >= 0) {
+                sessionOptions.addCPU(false);
+                sessionOptions.addCUDA(gpuDeviceId);
+            } else {
+                sessionOptions.addCPU(true);
+            }
+            byte[] bytes = ResourceUtil.readBytes(modelPath);
+            this.modelId = PageKeys.sha256(bytes);
+            this.session = this.env.createSession(bytes, sessionOptions);
         }
-        byte[] bytes = ResourceUtil.readBytes(modelPath);
-        this.session = this.env.createSession(bytes, sessionOptions);
 
         Map<String, NodeInfo> inputMetaMap = this.session.getInputInfo();
         this.inputName = this.session.getInputNames().iterator().next();
@@ -75,6 +109,7 @@ public class ModelDetection {
         this.numInputElements = (int) (this.inputShape[1] * this.inputShape[2] * this.inputShape[3]);
         this.inputHeight = (int) this.inputShape[2];
         this.inputWidth = (int) this.inputShape[3];
+        this.preprocessor = new ImagePreprocessor(this.inputWidth, this.inputHeight);
         this.outputName = this.session.getOutputNames().iterator().next();
     }
 
@@ -88,127 +123,136 @@ public class ModelDetection {
         }
     }
 
+    /**
+     * 检测图像中的布局区域，线程安全：原始尺寸等每次调用的状态只保存在调用栈上。
+     * 直接调用时不向 PipelineListener 报告耗时，埋点只覆盖 LayoutExtractor 逐页处理的路径
+     */
     public List<Detection> detectObjects(BufferedImage img) throws OrtException {
-        Map<String, OnnxTensor> inputMap = this.prepareInput(img);
-        float[][] predictions = inference(inputMap);
-        return this.processOutput(predictions);
-    }
-
-    private float[][] inference(Map<String, OnnxTensor> inputMap) throws OrtException {
-        OrtSession.Result result = this.session.run(inputMap);
-        return ((float[][][]) result.get(0).getValue())[0];
-    }
-
-    private Map<String, OnnxTensor> prepareInput(BufferedImage img) throws OrtException {
-        // 1. 获取图像原始尺寸
-        this.rawImgHeight = img.getHeight();
-        this.rawImgWidth = img.getWidth();
-
-        // 2. 转换为 RGB 格式
-        BufferedImage rgbImage = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
-        Graphics g = rgbImage.getGraphics();
-        g.drawImage(img, 0, 0, null);
-        g.dispose();
-
-        // 3. 调整大小到模型要求的尺寸
-        BufferedImage resizedImage = new BufferedImage(inputWidth, inputHeight, BufferedImage.TYPE_3BYTE_BGR);
-        Graphics2D g2d = resizedImage.createGraphics();
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.drawImage(rgbImage, 0, 0, inputWidth, inputHeight, null);
-        g2d.dispose();
-
-        // 4. 转换为浮点数组并归一化
-        byte[] pixelData = ((DataBufferByte) resizedImage.getRaster().getDataBuffer()).getData();
-        float[] whc = new float[numInputElements];
-        for (int i = 0; i < pixelData.length; i++) {
-            whc[i] = (pixelData[i] & 0xFF) / 255.0f; // 将 0-255 的值归一化到 0-1
+        return detectObjects(img, -1, PipelineListener.NONE);
+    }
+
+    /**
+     * 检测单页图像，并向 listener 报告预处理、推理、解码各阶段的耗时
+     */
+    List<Detection> detectObjects(BufferedImage img, int pageIndex, PipelineListener listener) throws OrtException {
+        long startTime = System.nanoTime();
+        try (PreparedInput input = this.prepareInput(Collections.singletonList(img))) {
+            listener.stageCompleted(pageIndex, PipelineStage.PREPROCESS, System.nanoTime() - startTime);
+            return inference(input, pageIndex, listener).get(0);
         }
+    }
 
-        // 5. 重排列数据为 CHW 格式
-        float[] chw = ImageUtil.whc2cwh(whc); // 重用已有的 whc2cwh 方法
-
-        // 6. 准备 ONNX Tensor
-        FloatBuffer inputBuffer = FloatBuffer.wrap(chw);
-        OnnxTensor inputTensor = OnnxTensor.createTensor(env, inputBuffer, inputShape);
-
-        // 7. 返回输入映射
-        Map<String, OnnxTensor> inputMap = new HashMap<>();
-        inputMap.put(inputName, inputTensor);
-        return inputMap;
-    }
-
-    private List<Detection> processOutput(float[][] predictions) {
-        // prediction
-        predictions = transposeMatrix(predictions);
-        Map<Integer, List<float[]>> class2Bbox = new HashMap<>();
-        for (float[] bbox : predictions) {
-            float[] condProb = Arrays.copyOfRange(bbox, 4, bbox.length);
-            int label = predMax(condProb);
-            float conf = condProb[label];
-            if (conf < this.confThreshold) {
-                continue;
-            }
-            bbox[4] = conf;
-            // xmin, ymin, xmax, ymax -> (xmin_raw, ymin_raw, xmax_raw, ymax_raw)
-            rescaleBoxes(bbox);
-            // xywh -> (x1, y1, x2, y2)
-            ImageUtil.xywh2xyxy(bbox);
-            //skip invalid prediction
-            if (bbox[0] >= bbox[2] || bbox[1] >= bbox[3]) {
-                continue;
+    /**
+     * 批量检测多张图像，结果顺序与输入一致
+     * <p>
+     * 模型导出时 batch 维度为动态（-1）时，将 N 张图像打包为一个 [N,3,H,W] 张量执行一次推理；
+     * 否则逐张推理。
+     * <p>
+     * 批量推理没有埋点：LayoutExtractor 的流水线逐页推理，不使用该方法，且一次推理的耗时无法归属到单个页码，
+     * 因此不向 PipelineListener 报告各阶段耗时，需要时由调用方自行计时
+     */
+    public List<List<Detection>> detectObjects(List<BufferedImage> images) throws OrtException {
+        if (!supportsBatch() || images.size() <= 1) {
+            List<List<Detection>> results = new ArrayList<>(images.size());
+            for (BufferedImage img : images) {
+                results.add(detectObjects(img));
             }
-            class2Bbox.putIfAbsent(label, new ArrayList<>());
-            class2Bbox.get(label).add(bbox);
+            return results;
         }
-        //apply non-max suppression for each class
-        List<Detection> detectionList = new ArrayList<>();
-        for (Map.Entry<Integer, List<float[]>> entry : class2Bbox.entrySet()) {
-            int label = entry.getKey();
-            List<float[]> bboxList = entry.getValue();
-            bboxList = ImageUtil.nonMaxSuppression(bboxList, this.iouThreshold);
-            for (float[] bbox : bboxList) {
-                if (label < labelNames.size()) {
-                    String labelString = labelNames.get(label);
-                    detectionList.add(new Detection(labelString, label, Arrays.copyOfRange(bbox, 0, 4), bbox[4]));
-                } else {
-                    log.warn("label: {}", label);
-                }
-            }
+        try (PreparedInput input = this.prepareInput(images)) {
+            return inference(input, -1, PipelineListener.NONE);
         }
-        return detectionList;
     }
 
-    public float[][] transposeMatrix(float[][] matrix) {
-        float[][] transMatrix = new float[matrix[0].length][matrix.length];
-        for (int i = 0; i < matrix.length; i++) {
-            for (int j = 0; j < matrix[0].length; j++) {
-                transMatrix[j][i] = matrix[i][j];
-            }
+    /**
+     * 模型是否支持动态 batch
+     */
+    public boolean supportsBatch() {
+        return this.inputShape[0] < 0;
+    }
+
+    private List<List<Detection>> inference(PreparedInput input, int pageIndex, PipelineListener listener) throws OrtException {
+        long startTime = System.nanoTime();
+        // OrtSession.run 本身是线程安全的；解码完成后即释放输出占用的本地内存
+        try (OrtSession.Result result = this.session.run(Collections.singletonMap(inputName, input.inputTensor()))) {
+            long decodeStartTime = System.nanoTime();
+            listener.stageCompleted(pageIndex, PipelineStage.INFERENCE, decodeStartTime - startTime);
+            List<List<Detection>> detections = processOutput((OnnxTensor) result.get(0), input.geometries());
+            listener.stageCompleted(pageIndex, PipelineStage.DECODE, System.nanoTime() - decodeStartTime);
+            return detections;
         }
-        return transMatrix;
     }
 
-    private int predMax(float[] probabilities) {
-        float maxVal = Float.NEGATIVE_INFINITY;
-        int idx = 0;
-        for (int i = 0; i < probabilities.length; i++) {
-            if (probabilities[i] > maxVal) {
-                maxVal = probabilities[i];
-                idx = i;
+    private PreparedInput prepareInput(List<BufferedImage> images) throws OrtException {
+        int batchSize = images.size();
+        ResizeGeometry[] geometries = new ResizeGeometry[batchSize];
+        // 当前线程复用的直接内存缓冲区，创建张量时无需再复制
+        FloatBuffer inputBuffer = preprocessor.acquireBuffer(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            BufferedImage img = images.get(i);
+            // 按图像原始尺寸获取缩放几何
+            geometries[i] = resizeGeometry(img.getWidth(), img.getHeight());
+            // 缩放、归一化并重排列为 CHW 格式
+            preprocessor.preprocess(img, geometries[i], inputBuffer, i * numInputElements);
+        }
+
+        // 准备 ONNX Tensor，batch 维度取实际图像数
+        long[] shape = this.inputShape.clone();
+        shape[0] = batchSize;
+        OnnxTensor inputTensor = OnnxTensor.createTensor(env, inputBuffer, shape);
+        return new PreparedInput(inputTensor, geometries);
+    }
+
+    /**
+     * 获取指定尺寸图像的缩放几何，按尺寸缓存，预处理和检测框还原使用同一份参数
+     */
+    public ResizeGeometry resizeGeometry(int rawImgWidth, int rawImgHeight) {
+        long key = ((long) rawImgWidth << 32) | rawImgHeight;
+        ResizeGeometry geometry = geometryCache.get(key);
+        if (geometry == null) {
+            if (geometryCache.size() >= MAX_CACHED_GEOMETRIES) {
+                geometryCache.clear();
             }
+            geometry = resizeMode == ResizeMode.LETTERBOX
+                    ? ResizeGeometry.letterbox(rawImgWidth, rawImgHeight, inputWidth, inputHeight)
+                    : ResizeGeometry.stretch(rawImgWidth, rawImgHeight, inputWidth, inputHeight);
+            geometryCache.put(key, geometry);
+        }
+        return geometry;
+    }
+
+    /**
+     * 按输出张量 [N, 4+C, A] 的原始布局逐图像解码
+     */
+    private List<List<Detection>> processOutput(OnnxTensor output, ResizeGeometry[] geometries) {
+        long[] shape = output.getInfo().getShape();
+        int numChannels = (int) shape[1];
+        int numAnchors = (int) shape[2];
+        FloatBuffer predictions = output.getFloatBuffer();
+        List<List<Detection>> results = new ArrayList<>(geometries.length);
+        for (int i = 0; i < geometries.length; i++) {
+            results.add(decoder.decode(predictions, i * numChannels * numAnchors, numChannels, numAnchors, geometries[i]));
+        }
+        return results;
+    }
+
+    /**
+     * 释放模型会话，OrtEnvironment 为进程内共享的单例，不在此关闭
+     */
+    @Override
+    public void close() throws OrtException {
+        this.session.close();
+    }
+
+    /**
+     * 单次调用的模型输入及每张图像的缩放几何，关闭时释放输入张量
+     */
+    private record PreparedInput(OnnxTensor inputTensor, ResizeGeometry[] geometries) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            inputTensor.close();
         }
-        return idx;
-    }
-
-    public void rescaleBoxes(float[] bbox) {
-        bbox[0] /= this.inputWidth;
-        bbox[0] *= this.rawImgWidth;
-        bbox[1] /= this.inputHeight;
-        bbox[1] *= this.rawImgHeight;
-        bbox[2] /= this.inputWidth;
-        bbox[2] *= this.rawImgWidth;
-        bbox[3] /= this.inputHeight;
-        bbox[3] *= this.rawImgHeight;
     }
 
 }
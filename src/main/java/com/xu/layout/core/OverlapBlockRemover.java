@@ -2,7 +2,7 @@ package com.xu.layout.core;
 
 import com.xu.layout.entity.RegionBlock;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
@@ -15,32 +15,87 @@ public class OverlapBlockRemover {
 
     private static final float THRESHOLD = 3.0f;
 
+    /**
+     * 按面积从大到小排序（原地修改 list），移除被更大区域块包含的区域块
+     */
     public static List<RegionBlock> removeOverlappingSmallerBlocks(List<RegionBlock> list) {
         list.sort(Comparator.comparingDouble((RegionBlock lc) -> -area(lc.getBbox())));
+        BlockTable table = new BlockTable(list);
+        return table.toBlocks(keepOutermost(table, table.ids()));
+    }
+
+    /**
+     * 按面积从大到小稳定排序后移除被更大区域块包含的区域块
+     *
+     * @return 保留的块 id，按面积从大到小
+     */
+    static int[] removeOverlappingSmallerBlocks(BlockTable table, int[] ids) {
+        // 高 32 位为面积取负后的可排序编码，低 32 位为原位置，保证相同面积时保持原有顺序
+        long[] keys = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            float negativeArea = -((table.x2[id] - table.x1[id]) * (table.y2[id] - table.y1[id]));
+            keys[i] = ((long) sortableBits(negativeArea) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[ids.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = ids[(int) keys[i]];
+        }
+        return keepOutermost(table, sorted);
+    }
+
+    /**
+     * 把 float 映射为保持 {@link Float#compare} 顺序的 int，包括 -0.0 小于 0.0、NaN 最大
+     */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
 
-        List<RegionBlock> result = new ArrayList<>();
-        for (RegionBlock current : list) {
+    /**
+     * @param sortedIds 按面积从大到小排列的块 id
+     */
+    private static int[] keepOutermost(BlockTable table, int[] sortedIds) {
+        if (!table.isWellFormed(sortedIds)) {
+            return keepOutermostByScan(table, sortedIds);
+        }
+        // 已保留的区域块登记到网格中，只与中心点所在网格中的候选框比较
+        BlockGrid keptBlocks = new BlockGrid(table, sortedIds, THRESHOLD);
+        int[] result = new int[sortedIds.length];
+        int count = 0;
+        for (int id : sortedIds) {
+            if (!keptBlocks.isContained(id)) {
+                keptBlocks.add(id);
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 逐一与已保留的区域块比较，用于含有不规范边界框的输入
+     */
+    private static int[] keepOutermostByScan(BlockTable table, int[] sortedIds) {
+        int[] result = new int[sortedIds.length];
+        int count = 0;
+        for (int id : sortedIds) {
             boolean isContained = false;
-            for (RegionBlock largerBlock : result) {
-                if (isContainedIn(current.getBbox(), largerBlock.getBbox())) {
+            for (int i = 0; i < count; i++) {
+                if (BlockGrid.isContainedIn(table, id, result[i], THRESHOLD)) {
                     isContained = true;
                     break;
                 }
             }
             if (!isContained) {
-                result.add(current);
+                result[count++] = id;
             }
         }
-        return result;
+        return Arrays.copyOf(result, count);
     }
 
     private static double area(float[] bbox) {
         return (bbox[2] - bbox[0]) * (bbox[3] - bbox[1]);
     }
 
-    private static boolean isContainedIn(float[] smallBbox, float[] largeBbox) {
-        return smallBbox[0] >= largeBbox[0] - THRESHOLD && smallBbox[1] >= largeBbox[1] - THRESHOLD &&
-                smallBbox[2] <= largeBbox[2] + THRESHOLD && smallBbox[3] <= largeBbox[3] + THRESHOLD;
-    }
-
 }
@@ -0,0 +1,68 @@
+package com.xu.layout.core;
+
+import com.xu.layout.entity.PageGeometry;
+import com.xu.layout.entity.PageMode;
+import com.xu.layout.entity.RegionBlock;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author xuzc
+ * <p>
+ * 单页在流水线各阶段之间传递的中间结果
+ */
+class PageContext {
+
+    final int pageIndex;
+
+    final PDPage page;
+
+    /**
+     * 渲染时在 PDF 线程上读取的页面几何信息，供工作线程组装结果，避免在其他线程访问 PDPage
+     */
+    final PageGeometry geometry;
+
+    final BufferedImage image;
+
+    final PDFRenderer renderer;
+
+    /**
+     * 页面图像的渲染方式及分辨率
+     */
+    final PageMode mode;
+
+    final float dpi;
+
+    List<Detection> detections;
+
+    List<RegionBlock> regionBlocks;
+
+    /**
+     * 本页所有 Figure 上传完成时结束，完成后区域块内容才完整
+     */
+    CompletableFuture<Void> figures;
+
+    /**
+     * 各阶段耗时（毫秒）
+     */
+    long renderMillis;
+
+    long detectMillis;
+
+    long extractMillis;
+
+    PageContext(int pageIndex, PDPage page, PageGeometry geometry, BufferedImage image, PDFRenderer renderer, PageMode mode, float dpi) {
+        this.pageIndex = pageIndex;
+        this.page = page;
+        this.geometry = geometry;
+        this.image = image;
+        this.renderer = renderer;
+        this.mode = mode;
+        this.dpi = dpi;
+    }
+
+}
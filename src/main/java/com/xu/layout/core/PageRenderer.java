@@ -0,0 +1,93 @@
+package com.xu.layout.core;
+
+import com.xu.layout.entity.PageGeometry;
+import com.xu.layout.entity.PageMode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * @author xuzc
+ * <p>
+ * 按渲染策略把页面渲染为检测用图像，每个文档一个实例，需在持有 PDDocument 的线程上使用。
+ * 开启快速路径时先探测页面文本层：原生文本页以灰度、允许图像降采样、按模型输入尺寸渲染，扫描页仍全彩渲染
+ */
+@Slf4j
+final class PageRenderer {
+
+    private final PDDocument document;
+
+    private final ExtractorOptions options;
+
+    private final int inputWidth;
+
+    private final int inputHeight;
+
+    /**
+     * 完整渲染，同时用于 Figure 区域的重新渲染
+     */
+    private final PDFRenderer fullRenderer;
+
+    private PDFRenderer fastRenderer;
+
+    private TextLayerProbe probe;
+
+    PageRenderer(PDDocument document, ExtractorOptions options, int inputWidth, int inputHeight) {
+        this.document = document;
+        this.options = options;
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.fullRenderer = new PDFRenderer(document);
+    }
+
+    PageContext render(int pageIndex) throws IOException {
+        PDPage page = document.getPage(pageIndex);
+        PageGeometry geometry = PageGeometry.of(page);
+        // 旋转 90/270 度的页面渲染后宽高互换
+        float pageWidth = geometry.getDisplayWidth();
+        float pageHeight = geometry.getDisplayHeight();
+        float dpi = options.getRenderPolicy().resolveDpi(pageWidth, pageHeight, inputWidth, inputHeight, options.getResizeMode());
+
+        if (options.isTextLayerFastPath()) {
+            int glyphs = probe().countVisibleGlyphs(page);
+            if (glyphs >= options.getMinTextLayerGlyphs()) {
+                float fastDpi = Math.min(dpi, RenderPolicy.fitModelInput()
+                        .resolveDpi(pageWidth, pageHeight, inputWidth, inputHeight, options.getResizeMode()));
+                log.debug("page: {}, 可见字形: {}, 快速渲染 {} DPI", pageIndex, glyphs, fastDpi);
+                BufferedImage img = fastRenderer().renderImageWithDPI(pageIndex, fastDpi, ImageType.GRAY);
+                return new PageContext(pageIndex, page, geometry, img, fullRenderer, PageMode.TEXT_LAYER, fastDpi);
+            }
+        }
+        BufferedImage img = fullRenderer.renderImageWithDPI(pageIndex, dpi);
+        return new PageContext(pageIndex, page, geometry, img, fullRenderer, PageMode.FULL, dpi);
+    }
+
+    private TextLayerProbe probe() throws IOException {
+        if (probe == null) {
+            probe = new TextLayerProbe();
+        }
+        return probe;
+    }
+
+    /**
+     * 允许图像降采样并优先速度，文字仍保留抗锯齿
+     */
+    private PDFRenderer fastRenderer() {
+        if (fastRenderer == null) {
+            fastRenderer = new PDFRenderer(document);
+            fastRenderer.setSubsamplingAllowed(true);
+            RenderingHints renderingHints = new RenderingHints(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            renderingHints.put(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            renderingHints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            fastRenderer.setRenderingHints(renderingHints);
+        }
+        return fastRenderer;
+    }
+
+}
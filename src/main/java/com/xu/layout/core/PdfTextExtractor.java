@@ -0,0 +1,221 @@
+package com.xu.layout.core;
+
+import com.xu.layout.entity.PageGeometry;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.*;
+
+/**
+ * @author xuzc
+ * <p>
+ * 按图像区域从 PDF 页面提取文本，不依赖模型，可单独使用
+ */
+public class PdfTextExtractor {
+
+    /**
+     * Extracts text from a specified region of a PDF page.
+     * <p>
+     * This method maps an image region to a PDF page region, then extracts the text inside that region.
+     *
+     * @param img        The image matrix, used to determine the size of the region.
+     * @param matRect    The rectangle defining the region in the image.
+     * @param pageNumber The page number of the PDF document, 0-based.
+     * @param page       The PDPage object representing the PDF page.
+     * @return The text extracted from the specified region.
+     */
+    public static String extractTextFromRegion(BufferedImage img, Rectangle matRect, int pageNumber, PDPage page) {
+        return extractTextFromRegions(img, Collections.singletonList(matRect), pageNumber, page).get(0);
+    }
+
+    /**
+     * Extracts text from several regions of a PDF page in a single pass.
+     * <p>
+     * The content stream of the page is parsed once instead of once per region. Each glyph is assigned to every
+     * region that contains it, which gives the same text as extracting the regions one by one.
+     *
+     * @param img        The image matrix, used to determine the size of the regions.
+     * @param matRects   The rectangles defining the regions in the image.
+     * @param pageNumber The page number of the PDF document, 0-based.
+     * @param page       The PDPage object representing the PDF page.
+     * @return The text extracted from each region, in the same order as {@code matRects}.
+     */
+    public static List<String> extractTextFromRegions(BufferedImage img, List<Rectangle> matRects, int pageNumber, PDPage page) {
+        if (matRects.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Rectangle> regions = new ArrayList<>(matRects.size());
+        for (Rectangle matRect : matRects) {
+            // Map the image region to a PDF rectangle
+            regions.add(mapMatToPDFRectangle(img, matRect, page));
+        }
+        try {
+            RegionTextStripper stripper = new RegionTextStripper(regions);
+            // Extract text from all regions at once
+            stripper.extractRegions(page);
+            return stripper.getTexts();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Maps a rectangle in image coordinates to a PDF coordinate rectangle, ensuring the rectangle
+     * does not exceed image boundaries.
+     * <p>
+     * The text stripper works in display coordinates: points relative to the upper left corner of the
+     * crop box after the page rotation, which is exactly what the page image shows. The image is
+     * therefore scaled by the displayed crop box size, see {@link PageGeometry}.
+     *
+     * @param img     The image providing dimensions.
+     * @param matRect The rectangle in the image coordinates to be mapped.
+     * @param pdfPage The PDPage object used to get PDF page dimensions.
+     * @return A Rectangle object representing the mapped region in PDF coordinates.
+     */
+    public static Rectangle mapMatToPDFRectangle(BufferedImage img, Rectangle matRect, PDPage pdfPage) {
+        // 获取图像宽度和高度
+        int imageWidth = img.getWidth();
+        int imageHeight = img.getHeight();
+        // 页面图像是旋转后的 cropBox
+        PageGeometry geometry = PageGeometry.of(pdfPage);
+
+        // Calculate the scaling factors
+        float scaleX = geometry.getDisplayWidth() / imageWidth;
+        float scaleY = geometry.getDisplayHeight() / imageHeight;
+
+        // Map the OpenCV Rect to the PDF coordinates
+        int x = (int) (matRect.x * scaleX);
+        int y = (int) (matRect.y * scaleY);
+        int width = (int) (matRect.width * scaleX);
+        int height = (int) (matRect.height * scaleY);
+
+        return new Rectangle(x, y, width, height);
+    }
+
+    /**
+     * 一次解析页面内容流，把每个字形分配给包含它的所有区域，再按区域分别输出文本。
+     * <p>
+     * 与 PDFTextStripperByArea 注册多个区域不同，重叠文字的去重按区域各自进行，
+     * 否则已分配给前一个区域的字形会被当作重复字形从后续区域中丢弃；
+     * 附加符号的合并会修改共享的 TextPosition，同一对字形只合并一次。
+     * 因此结果与逐区域单独提取一致。
+     */
+    private static final class RegionTextStripper extends PDFTextStripper {
+
+        private final List<Rectangle> regions;
+
+        private final List<ArrayList<List<TextPosition>>> regionCharacters;
+
+        private final List<Map<String, TreeMap<Float, TreeSet<Float>>>> regionCharacterMappings;
+
+        private final List<StringWriter> regionTexts;
+
+        /**
+         * 已合并的附加符号与其所在字形，key 为附加符号
+         */
+        private final Map<TextPosition, TextPosition> mergedDiacritics = new IdentityHashMap<>();
+
+        private final boolean suppressDuplicates;
+
+        RegionTextStripper(List<Rectangle> regions) throws IOException {
+            this.regions = regions;
+            this.regionCharacters = new ArrayList<>(regions.size());
+            this.regionCharacterMappings = new ArrayList<>(regions.size());
+            this.regionTexts = new ArrayList<>(regions.size());
+            for (int i = 0; i < regions.size(); i++) {
+                ArrayList<List<TextPosition>> characters = new ArrayList<>();
+                characters.add(new ArrayList<>());
+                regionCharacters.add(characters);
+                regionCharacterMappings.add(new HashMap<>());
+                regionTexts.add(new StringWriter());
+            }
+            // 区域文本不按文章线索分组，去重改为按区域进行
+            setShouldSeparateByBeads(false);
+            this.suppressDuplicates = getSuppressDuplicateOverlappingText();
+            setSuppressDuplicateOverlappingText(false);
+        }
+
+        void extractRegions(PDPage page) throws IOException {
+            setStartPage(getCurrentPageNo());
+            setEndPage(getCurrentPageNo());
+            if (page.hasContents()) {
+                processPage(page);
+            }
+        }
+
+        List<String> getTexts() {
+            List<String> texts = new ArrayList<>(regionTexts.size());
+            for (StringWriter regionText : regionTexts) {
+                texts.add(regionText.toString());
+            }
+            return texts;
+        }
+
+        @Override
+        protected void processTextPosition(TextPosition text) {
+            for (int i = 0; i < regions.size(); i++) {
+                if (!regions.get(i).contains(text.getX(), text.getY())) {
+                    continue;
+                }
+                if (suppressDuplicates && isDuplicate(regionCharacterMappings.get(i), text)) {
+                    continue;
+                }
+                List<TextPosition> textList = regionCharacters.get(i).get(0);
+                TextPosition previous = textList.isEmpty() ? null : textList.get(textList.size() - 1);
+                if (previous != null && mergedDiacritics.get(text) == previous) {
+                    // 附加符号已合并到该字形
+                    continue;
+                }
+                if (previous != null && mergedDiacritics.get(previous) == text) {
+                    // 该字形已吸收前一个附加符号
+                    textList.set(textList.size() - 1, text);
+                    continue;
+                }
+                int size = textList.size();
+                charactersByArticle = regionCharacters.get(i);
+                super.processTextPosition(text);
+                if (previous != null && textList.size() == size) {
+                    if (textList.get(size - 1) == previous) {
+                        mergedDiacritics.put(text, previous);
+                    } else {
+                        mergedDiacritics.put(previous, text);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 与 PDFTextStripper 的重叠文字去重规则相同：同一字符在容差范围内重复出现时只保留第一个
+         */
+        private boolean isDuplicate(Map<String, TreeMap<Float, TreeSet<Float>>> characterMapping, TextPosition text) {
+            String textCharacter = text.getUnicode();
+            float textX = text.getX();
+            float textY = text.getY();
+            TreeMap<Float, TreeSet<Float>> sameTextCharacters = characterMapping.computeIfAbsent(textCharacter, k -> new TreeMap<>());
+            float tolerance = text.getWidth() / textCharacter.length() / 3.0f;
+            for (TreeSet<Float> xMatch : sameTextCharacters.subMap(textX - tolerance, textX + tolerance).values()) {
+                if (!xMatch.subSet(textY - tolerance, textY + tolerance).isEmpty()) {
+                    return true;
+                }
+            }
+            sameTextCharacters.computeIfAbsent(textX, k -> new TreeSet<>()).add(textY);
+            return false;
+        }
+
+        @Override
+        protected void writePage() throws IOException {
+            for (int i = 0; i < regions.size(); i++) {
+                charactersByArticle = regionCharacters.get(i);
+                output = regionTexts.get(i);
+                super.writePage();
+            }
+        }
+    }
+
+}
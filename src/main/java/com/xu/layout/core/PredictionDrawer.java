@@ -0,0 +1,145 @@
+package com.xu.layout.core;
+
+import com.xu.layout.entity.RegionBlock;
+import com.xu.layout.utils.ImageUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.xu.layout.utils.Utils.generateUUID;
+import static com.xu.layout.utils.Utils.namedThreadFactory;
+
+/**
+ * @author xuzc
+ * <p>
+ * 按 DebugDrawPolicy 采样，在后台线程上把检测结果绘制到页面图像并保存。
+ * 采样到的页面都会写出：待写出的图像数量达到上限时提交方等待队列空出，以限制积压图像占用的内存，
+ * 因此 everyPage() 下仍每页保存一张，只是写出较慢时检测流程随之变慢
+ */
+@Slf4j
+final class PredictionDrawer implements AutoCloseable {
+
+    private static final int MAX_PENDING = 4;
+
+    private final Path outputDir;
+
+    private final DebugDrawPolicy policy;
+
+    private final ThreadPoolExecutor executor;
+
+    PredictionDrawer(String outputDir, DebugDrawPolicy policy) {
+        Path path = outputDir == null || outputDir.isEmpty() ? null : Paths.get(outputDir);
+        boolean enabled = path != null && path.isAbsolute() && !policy.isNone();
+        this.outputDir = enabled ? path : null;
+        this.policy = policy;
+        this.executor = enabled ? newExecutor() : null;
+    }
+
+    /**
+     * 单线程写出，待写出队列满时提交方等待，关闭后提交的任务静默丢弃
+     */
+    private static ThreadPoolExecutor newExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_PENDING),
+                namedThreadFactory("layout4j-debug"), PredictionDrawer::awaitQueue);
+    }
+
+    /**
+     * 队列满时等待空位；定期检查是否已关闭，关闭后不再入队，避免任务留在已终止的线程池中
+     */
+    private static void awaitQueue(Runnable task, ThreadPoolExecutor executor) {
+        try {
+            while (!executor.isShutdown()) {
+                if (executor.getQueue().offer(task, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("等待调试图像写出时被中断，跳过");
+        }
+    }
+
+    /**
+     * 页面处理完成，按页采样绘制排序后的区域块。绘制会修改页面图像，调用后不应再使用该图像
+     */
+    void pageCompleted(PageContext context, List<RegionBlock> regionBlocks) {
+        if (executor != null && policy.shouldDraw(context.pageIndex)) {
+            submit(context.image, context.pageIndex, regionBlocks, "detected");
+        }
+    }
+
+    /**
+     * 页面在推理之后的阶段失败，绘制推理结果；文档中止导致的取消或拒绝执行不算页面失败
+     */
+    void pageFailed(PageContext context, Throwable cause) {
+        if (executor == null || !policy.isOnError() || context.detections == null) {
+            return;
+        }
+        Throwable rootCause = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+        if (rootCause instanceof CancellationException || rootCause instanceof RejectedExecutionException) {
+            return;
+        }
+        List<RegionBlock> regionBlocks = new ArrayList<>(context.detections.size());
+        for (Detection detection : context.detections) {
+            regionBlocks.add(new RegionBlock(detection.getLabel(), detection.getLabelIndex(), null, detection.getBbox(), detection.getConfidence()));
+        }
+        // 失败页面的 Figure 裁剪图可能仍在编码，与页面图像共享像素，在副本上绘制
+        submit(copyOf(context.image), context.pageIndex, regionBlocks, "failed");
+    }
+
+    private static BufferedImage copyOf(BufferedImage img) {
+        BufferedImage copy = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = copy.createGraphics();
+        try {
+            graphics.drawImage(img, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return copy;
+    }
+
+    private void submit(BufferedImage img, int pageIndex, List<RegionBlock> regionBlocks, String suffix) {
+        executor.execute(() -> {
+            ImageUtil.drawPredictions(img, regionBlocks);
+            Path path = outputDir.resolve(pageIndex + "---" + generateUUID() + "_" + suffix + ".png");
+            try {
+                ImageIO.write(img, "png", path.toFile());
+            } catch (IOException e) {
+                log.warn("调试图像保存失败: {}", path, e);
+            }
+        });
+    }
+
+    /**
+     * 等待已提交的调试图像写出
+     */
+    @Override
+    public void close() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.xu.layout.core;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * @author xuzc
+ * <p>
+ * 页面渲染分辨率策略：固定 DPI，或按模型输入尺寸计算 DPI，只渲染模型实际需要的像素
+ */
+@Getter
+@ToString
+public final class RenderPolicy {
+
+    /**
+     * 原实现使用的渲染分辨率，区域扩展的像素值以此为基准
+     */
+    public static final float BASE_DPI = 150f;
+
+    private final float dpi;
+
+    private final boolean fitModelInput;
+
+    private final float minDpi;
+
+    private final float maxDpi;
+
+    private RenderPolicy(float dpi, boolean fitModelInput, float minDpi, float maxDpi) {
+        this.dpi = dpi;
+        this.fitModelInput = fitModelInput;
+        this.minDpi = minDpi;
+        this.maxDpi = maxDpi;
+    }
+
+    /**
+     * 固定 DPI 渲染
+     */
+    public static RenderPolicy fixed(float dpi) {
+        if (dpi <= 0) {
+            throw new IllegalArgumentException("dpi must be positive: " + dpi);
+        }
+        return new RenderPolicy(dpi, false, dpi, dpi);
+    }
+
+    /**
+     * 按模型输入尺寸渲染，DPI 限制在 [36, 150] 之间
+     */
+    public static RenderPolicy fitModelInput() {
+        return fitModelInput(36f, BASE_DPI);
+    }
+
+    /**
+     * 按模型输入尺寸渲染：拉伸模式下两个方向都不低于输入尺寸，letterbox 模式下长边恰好等于输入尺寸
+     */
+    public static RenderPolicy fitModelInput(float minDpi, float maxDpi) {
+        if (minDpi <= 0 || maxDpi < minDpi) {
+            throw new IllegalArgumentException("invalid dpi range: [" + minDpi + ", " + maxDpi + "]");
+        }
+        return new RenderPolicy(0, true, minDpi, maxDpi);
+    }
+
+    /**
+     * 计算页面的渲染 DPI
+     *
+     * @param pageWidth   页面宽度（点），已考虑页面旋转
+     * @param pageHeight  页面高度（点），已考虑页面旋转
+     * @param inputWidth  模型输入宽度
+     * @param inputHeight 模型输入高度
+     * @param resizeMode  缩放到模型输入的方式
+     */
+    public float resolveDpi(float pageWidth, float pageHeight, int inputWidth, int inputHeight, ResizeMode resizeMode) {
+        if (!fitModelInput) {
+            return dpi;
+        }
+        float scaleX = inputWidth / pageWidth;
+        float scaleY = inputHeight / pageHeight;
+        float scale = resizeMode == ResizeMode.LETTERBOX ? Math.min(scaleX, scaleY) : Math.max(scaleX, scaleY);
+        return Math.max(minDpi, Math.min(maxDpi, scale * 72f));
+    }
+
+}
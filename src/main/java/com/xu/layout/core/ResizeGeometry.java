@@ -0,0 +1,85 @@
+package com.xu.layout.core;
+
+import lombok.Getter;
+
+/**
+ * @author xuzc
+ * <p>
+ * 原始图像到模型输入的缩放几何：缩放比例及填充偏移，预处理与检测框还原共用同一份参数
+ */
+@Getter
+public final class ResizeGeometry {
+
+    /**
+     * letterbox 填充区域的灰度值，与 YOLO 训练时的填充一致
+     */
+    public static final float PAD_VALUE = 114f / 255f;
+
+    private final int rawWidth;
+
+    private final int rawHeight;
+
+    private final float scaleX;
+
+    private final float scaleY;
+
+    private final int padX;
+
+    private final int padY;
+
+    private final int contentWidth;
+
+    private final int contentHeight;
+
+    private ResizeGeometry(int rawWidth, int rawHeight, float scaleX, float scaleY, int padX, int padY,
+                           int contentWidth, int contentHeight) {
+        this.rawWidth = rawWidth;
+        this.rawHeight = rawHeight;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.padX = padX;
+        this.padY = padY;
+        this.contentWidth = contentWidth;
+        this.contentHeight = contentHeight;
+    }
+
+    /**
+     * 拉伸到模型输入尺寸，X、Y 方向比例各自独立
+     */
+    public static ResizeGeometry stretch(int rawWidth, int rawHeight, int inputWidth, int inputHeight) {
+        return new ResizeGeometry(rawWidth, rawHeight, (float) inputWidth / rawWidth, (float) inputHeight / rawHeight,
+                0, 0, inputWidth, inputHeight);
+    }
+
+    /**
+     * 保持宽高比缩放，居中放置，其余区域填充
+     */
+    public static ResizeGeometry letterbox(int rawWidth, int rawHeight, int inputWidth, int inputHeight) {
+        float scale = Math.min((float) inputWidth / rawWidth, (float) inputHeight / rawHeight);
+        int contentWidth = Math.min(Math.round(rawWidth * scale), inputWidth);
+        int contentHeight = Math.min(Math.round(rawHeight * scale), inputHeight);
+        return new ResizeGeometry(rawWidth, rawHeight, scale, scale,
+                (inputWidth - contentWidth) / 2, (inputHeight - contentHeight) / 2, contentWidth, contentHeight);
+    }
+
+    /**
+     * 将模型输入坐标系下的中心点框 (cx, cy, w, h) 还原到原始图像坐标系
+     */
+    public void rescaleXywh(float[] bbox) {
+        bbox[0] = (bbox[0] - padX) / scaleX;
+        bbox[1] = (bbox[1] - padY) / scaleY;
+        bbox[2] /= scaleX;
+        bbox[3] /= scaleY;
+    }
+
+    /**
+     * 将 (x1, y1, x2, y2) 框裁剪到原始图像范围内
+     */
+    public void clipXyxy(float[] bbox) {
+        bbox[0] = Math.min(Math.max(bbox[0], 0), rawWidth);
+        bbox[1] = Math.min(Math.max(bbox[1], 0), rawHeight);
+        bbox[2] = Math.min(Math.max(bbox[2], 0), rawWidth);
+        bbox[3] = Math.min(Math.max(bbox[3], 0), rawHeight);
+    }
+
+}
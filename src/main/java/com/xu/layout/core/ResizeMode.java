@@ -0,0 +1,20 @@
+package com.xu.layout.core;
+
+/**
+ * @author xuzc
+ * <p>
+ * 页面图像缩放到模型输入尺寸的方式
+ */
+public enum ResizeMode {
+
+    /**
+     * 直接拉伸到输入尺寸，宽高比会变形
+     */
+    STRETCH,
+
+    /**
+     * 保持宽高比缩放并填充，A4 等纵向页面的检测精度更高
+     */
+    LETTERBOX
+
+}
@@ -0,0 +1,89 @@
+package com.xu.layout.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author xuzc
+ * <p>
+ * 在共享线程池上按提交顺序逐个执行任务，同一时刻最多一个任务在运行。
+ * 每个文档一个实例，使访问 PDDocument 的渲染、文本提取任务串行执行，而线程在文档之间复用
+ */
+final class SerialExecutor implements Executor {
+
+    private final ExecutorService executor;
+
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+    /**
+     * 是否有任务已提交到线程池、尚未执行完
+     */
+    private boolean running;
+
+    private boolean shutdown;
+
+    SerialExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public synchronized void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("文档已停止处理");
+        }
+        tasks.add(task);
+        if (!running) {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * 提交下一个任务；线程池已关闭时拒绝提交，running 保持为 false
+     */
+    private synchronized void scheduleNext() {
+        running = false;
+        Runnable next = tasks.poll();
+        if (next == null) {
+            notifyAll();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    next.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            notifyAll();
+            throw e;
+        }
+        running = true;
+    }
+
+    /**
+     * 拒绝新任务、丢弃尚未开始的任务，并等待正在执行的任务结束；返回后不再有任务访问该文档。
+     * 线程池被 shutdownNow 时已提交的任务可能不再执行，此时等到线程池终止为止。
+     * 等待期间忽略中断，返回前恢复线程的中断状态
+     */
+    synchronized void shutdownAndAwait() {
+        shutdown = true;
+        tasks.clear();
+        boolean interrupted = false;
+        while (running && !executor.isTerminated()) {
+            try {
+                wait(100);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
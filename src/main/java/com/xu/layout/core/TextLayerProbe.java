@@ -0,0 +1,55 @@
+package com.xu.layout.core;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+
+/**
+ * @author xuzc
+ * <p>
+ * 统计页面中可见（填充或描边）的非空白字形数量，用于区分原生文本页与扫描页；
+ * OCR 后的扫描件文本层通常为不可见模式，不计入
+ */
+final class TextLayerProbe extends PDFTextStripper {
+
+    /**
+     * PDFTextStripper.processPage 只处理页码计数 currentPageNo 落在 [startPage, endPage] 内的页面。
+     * 该计数仅在 writeText 遍历页面树时重置并递增，这里直接逐页调用 processPage，计数始终为初始值 0，
+     * 因此把页码范围固定为 [0, 0]，使每次调用都通过检查
+     */
+    private static final int PAGE_NO = 0;
+
+    private int visibleGlyphs;
+
+    TextLayerProbe() throws IOException {
+        setStartPage(PAGE_NO);
+        setEndPage(PAGE_NO);
+    }
+
+    int countVisibleGlyphs(PDPage page) throws IOException {
+        visibleGlyphs = 0;
+        if (page.hasContents()) {
+            processPage(page);
+        }
+        return visibleGlyphs;
+    }
+
+    @Override
+    protected void processTextPosition(TextPosition text) {
+        RenderingMode renderingMode = getGraphicsState().getTextState().getRenderingMode();
+        if ((renderingMode.isFill() || renderingMode.isStroke()) && !text.getUnicode().isBlank()) {
+            visibleGlyphs++;
+        }
+    }
+
+    /**
+     * 只计数，不排序也不输出文本
+     */
+    @Override
+    protected void writePage() {
+    }
+
+}
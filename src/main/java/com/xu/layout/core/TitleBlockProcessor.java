@@ -1,10 +1,8 @@
 package com.xu.layout.core;
 
-import com.xu.layout.entity.LayoutNode;
 import com.xu.layout.entity.RegionBlock;
 
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * @author xuzc
@@ -17,18 +15,147 @@ public class TitleBlockProcessor {
         return processAndTraverse(columnMap, null);
     }
 
+    /**
+     * 按列号顺序排列：parent（非空时）在前，随后依次为各列的区域块，与按列构建布局树后先序遍历的结果相同
+     */
     public static List<RegionBlock> processAndTraverse(Map<Integer, List<RegionBlock>> columnMap, RegionBlock parent) {
         int columns = columnMap.size();
-        LayoutNode root = new LayoutNode(parent);
+        List<RegionBlock> result = new ArrayList<>();
+        if (parent != null) {
+            result.add(parent);
+        }
         for (int col = 0; col < columns; col++) {
-            List<RegionBlock> columnTexts = columnMap.get(col);
-            LayoutNode columnNode = new LayoutNode(null);
-            for (RegionBlock text : columnTexts) {
-                columnNode.children.add(new LayoutNode(text));
+            result.addAll(columnMap.get(col));
+        }
+        return result;
+    }
+
+    /**
+     * 把区域块分配到所属的标题下，结果与对每个标题逐一调用 {@link #isUnderTitle} 相同
+     *
+     * @param titles 按位置排序的标题
+     * @param texts  非标题区域块
+     * @return 每个标题下的区域块，保持 texts 中的顺序
+     */
+    public static List<List<RegionBlock>> groupUnderTitles(List<RegionBlock> titles, List<RegionBlock> texts) {
+        List<RegionBlock> blocks = new ArrayList<>(titles.size() + texts.size());
+        blocks.addAll(titles);
+        blocks.addAll(texts);
+        BlockTable table = new BlockTable(blocks);
+        int[] ids = table.ids();
+        int[][] groups = groupUnderTitles(table, Arrays.copyOfRange(ids, 0, titles.size()), Arrays.copyOfRange(ids, titles.size(), ids.length));
+        List<List<RegionBlock>> result = new ArrayList<>(groups.length);
+        for (int[] group : groups) {
+            result.add(table.toBlocks(group));
+        }
+        return result;
+    }
+
+    /**
+     * 把区域块分配到所属的标题下。
+     * <p>
+     * 区域块位于标题 i 下方且水平重叠时，标题 i 本身满足"后续标题阻断"的条件，因此区域块只可能属于
+     * 阻断它的标题中序号最大的一个。按标题顺序预计算上边界的后缀最小值，二分定位可能阻断的最后一个标题后向前查找，
+     * 每个区域块只需查询一次，不再对每个标题遍历全部区域块和后续标题
+     *
+     * @param titleIds 按位置排序的标题块 id
+     * @param textIds  非标题块 id
+     * @return 每个标题下的块 id，保持 textIds 中的顺序
+     */
+    static int[][] groupUnderTitles(BlockTable table, int[] titleIds, int[] textIds) {
+        if (!table.isWellFormed(titleIds) || !table.isWellFormed(textIds) || hasDuplicates(table, titleIds)) {
+            // 不规范的边界框或重复的标题，逐一判断
+            return groupByScan(table, titleIds, textIds);
+        }
+        int titleCount = titleIds.length;
+        // minTopFrom[j] 为标题 j 及之后所有标题上边界的最小值，随 j 单调不减
+        float[] minTopFrom = new float[titleCount + 1];
+        minTopFrom[titleCount] = Float.POSITIVE_INFINITY;
+        for (int j = titleCount - 1; j >= 0; j--) {
+            minTopFrom[j] = Math.min(table.y1[titleIds[j]], minTopFrom[j + 1]);
+        }
+        // 每个区域块所属标题的序号，-1 表示不属于任何标题
+        int[] owner = new int[textIds.length];
+        Arrays.fill(owner, -1);
+        int[] groupSizes = new int[titleCount];
+        for (int i = 0; i < textIds.length; i++) {
+            int text = textIds[i];
+            int last = lastBlockingTitle(table, titleIds, minTopFrom, text);
+            if (last < 0) {
+                continue;
+            }
+            int title = titleIds[last];
+            if (table.y1[text] > table.y2[title] && horizontalOverlap(table.x1[title], table.x2[title], table.x1[text], table.x2[text])) {
+                owner[i] = last;
+                groupSizes[last]++;
+            }
+        }
+        int[][] groups = new int[titleCount][];
+        for (int j = 0; j < titleCount; j++) {
+            groups[j] = new int[groupSizes[j]];
+            groupSizes[j] = 0;
+        }
+        for (int i = 0; i < textIds.length; i++) {
+            if (owner[i] >= 0) {
+                groups[owner[i]][groupSizes[owner[i]]++] = textIds[i];
+            }
+        }
+        return groups;
+    }
+
+    private static int[][] groupByScan(BlockTable table, int[] titleIds, int[] textIds) {
+        List<RegionBlock> titles = table.toBlocks(titleIds);
+        int[][] groups = new int[titleIds.length][];
+        int[] buffer = new int[textIds.length];
+        for (int j = 0; j < titleIds.length; j++) {
+            List<RegionBlock> latterTitles = titles.subList(j + 1, titles.size());
+            int size = 0;
+            for (int text : textIds) {
+                if (isUnderTitle(titles.get(j), table.block(text), latterTitles)) {
+                    buffer[size++] = text;
+                }
+            }
+            groups[j] = Arrays.copyOf(buffer, size);
+        }
+        return groups;
+    }
+
+    /**
+     * 上边界高于区域块下边界且与其水平重叠的标题中序号最大的一个，没有时返回 -1
+     */
+    private static int lastBlockingTitle(BlockTable table, int[] titleIds, float[] minTopFrom, int text) {
+        float textBottom = table.y2[text];
+        // 二分查找满足 minTopFrom[j] < 下边界的最大 j，之后的标题上边界都不高于区域块下边界
+        int low = 0;
+        int high = titleIds.length - 1;
+        int start = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (minTopFrom[mid] < textBottom) {
+                start = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        for (int j = start; j >= 0; j--) {
+            int other = titleIds[j];
+            if (textBottom > table.y1[other]
+                    && horizontalOverlapWithBelowTitle(table.x1[other], table.x2[other], table.x1[text], table.x2[text])) {
+                return j;
             }
-            root.children.add(columnNode);
         }
-        return root.preorderTraverse();
+        return -1;
+    }
+
+    private static boolean hasDuplicates(BlockTable table, int[] titleIds) {
+        Set<RegionBlock> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int title : titleIds) {
+            if (!seen.add(table.block(title))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public static boolean isUnderTitle(RegionBlock title, RegionBlock text, List<RegionBlock> latterTitles) {
@@ -59,16 +186,24 @@ public class TitleBlockProcessor {
     }
 
     private static boolean horizontalOverlap(float[] titleBbox, float[] textBbox) {
-        return (textBbox[0] < titleBbox[2] && textBbox[2] > titleBbox[0]) ||
-                (textBbox[0] < titleBbox[0] && textBbox[2] > titleBbox[0]) ||
-                (textBbox[0] < titleBbox[2] && textBbox[2] > titleBbox[2]);
+        return horizontalOverlap(titleBbox[0], titleBbox[2], textBbox[0], textBbox[2]);
+    }
+
+    private static boolean horizontalOverlap(float titleX1, float titleX2, float textX1, float textX2) {
+        return (textX1 < titleX2 && textX2 > titleX1) ||
+                (textX1 < titleX1 && textX2 > titleX1) ||
+                (textX1 < titleX2 && textX2 > titleX2);
     }
 
     private static boolean horizontalOverlapWithBelowTitle(float[] titleBbox, float[] textBbox) {
-        return (textBbox[0] < titleBbox[2] && textBbox[2] > titleBbox[0]) ||
-                (textBbox[0] < titleBbox[0] && textBbox[2] > titleBbox[0]) ||
-                (textBbox[0] < titleBbox[2] && textBbox[2] > titleBbox[2]) ||
-                (textBbox[0] <= titleBbox[0] && textBbox[2] >= titleBbox[2]);
+        return horizontalOverlapWithBelowTitle(titleBbox[0], titleBbox[2], textBbox[0], textBbox[2]);
+    }
+
+    private static boolean horizontalOverlapWithBelowTitle(float titleX1, float titleX2, float textX1, float textX2) {
+        return (textX1 < titleX2 && textX2 > titleX1) ||
+                (textX1 < titleX1 && textX2 > titleX1) ||
+                (textX1 < titleX2 && textX2 > titleX2) ||
+                (textX1 <= titleX1 && textX2 >= titleX2);
     }
 
 }
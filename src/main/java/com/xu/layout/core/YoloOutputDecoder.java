@@ -0,0 +1,162 @@
+package com.xu.layout.core;
+
+import com.xu.layout.utils.ImageUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @author xuzc
+ * <p>
+ * YOLOv8 输出解码：直接按 [4+C, N] 的原始布局逐行读取输出缓冲区，
+ * 不再转置为 [N][4+C] 数组，也不为每个候选框复制类别概率
+ */
+@Slf4j
+public class YoloOutputDecoder {
+
+    private final float confThreshold;
+
+    private final float iouThreshold;
+
+    private final List<String> labelNames;
+
+    /**
+     * 是否使用 Soft-NMS 代替标准非极大值抑制
+     */
+    private final boolean softNms;
+
+    private static final float SOFT_NMS_SIGMA = 0.5f;
+
+    /**
+     * 每个线程一份按候选框数量分配的中间数组
+     */
+    private final ThreadLocal<Scratch> scratches = new ThreadLocal<>();
+
+    public YoloOutputDecoder(float confThreshold, float iouThreshold, List<String> labelNames) {
+        this(confThreshold, iouThreshold, labelNames, false);
+    }
+
+    public YoloOutputDecoder(float confThreshold, float iouThreshold, List<String> labelNames, boolean softNms) {
+        this.confThreshold = confThreshold;
+        this.iouThreshold = iouThreshold;
+        this.labelNames = labelNames;
+        this.softNms = softNms;
+    }
+
+    /**
+     * 解码单张图像的输出
+     *
+     * @param output      模型输出缓冲区
+     * @param offset      该图像输出在缓冲区中的起始位置
+     * @param numChannels 每个候选框的通道数，即 4 + 类别数
+     * @param numAnchors  候选框数量
+     * @param geometry    该图像的缩放几何，用于将检测框还原到原始图像坐标
+     */
+    public List<Detection> decode(FloatBuffer output, int offset, int numChannels, int numAnchors, ResizeGeometry geometry) {
+        Scratch scratch = scratch(numAnchors);
+        float[] maxConf = scratch.maxConf;
+        int[] maxLabel = scratch.maxLabel;
+        float[] row = scratch.row;
+
+        // 逐类别行扫描求每个候选框的最大置信度，内层循环为连续的数组访问，便于 JIT 向量化
+        output.get(offset + 4 * numAnchors, maxConf, 0, numAnchors);
+        Arrays.fill(maxLabel, 0, numAnchors, 0);
+        for (int label = 1; label < numChannels - 4; label++) {
+            output.get(offset + (4 + label) * numAnchors, row, 0, numAnchors);
+            for (int i = 0; i < numAnchors; i++) {
+                if (row[i] > maxConf[i]) {
+                    maxConf[i] = row[i];
+                    maxLabel[i] = label;
+                }
+            }
+        }
+
+        // 置信度预过滤后，只为保留的候选框读取坐标
+        int count = 0;
+        float[] boxes = scratch.boxes;
+        float[] scores = scratch.scores;
+        int[] labels = scratch.labels;
+        float[] bbox = new float[4];
+        for (int i = 0; i < numAnchors; i++) {
+            float conf = maxConf[i];
+            if (conf < this.confThreshold) {
+                continue;
+            }
+            bbox[0] = output.get(offset + i);
+            bbox[1] = output.get(offset + numAnchors + i);
+            bbox[2] = output.get(offset + 2 * numAnchors + i);
+            bbox[3] = output.get(offset + 3 * numAnchors + i);
+            // xmin, ymin, xmax, ymax -> (xmin_raw, ymin_raw, xmax_raw, ymax_raw)
+            geometry.rescaleXywh(bbox);
+            // xywh -> (x1, y1, x2, y2)
+            ImageUtil.xywh2xyxy(bbox);
+            // letterbox 填充区域内的框可能越界
+            geometry.clipXyxy(bbox);
+            //skip invalid prediction
+            if (bbox[0] >= bbox[2] || bbox[1] >= bbox[3]) {
+                continue;
+            }
+            System.arraycopy(bbox, 0, boxes, count * 4, 4);
+            scores[count] = conf;
+            labels[count] = maxLabel[i];
+            count++;
+        }
+        return suppress(boxes, scores, labels, count);
+    }
+
+    /**
+     * 一次遍历完成所有类别的非极大值抑制，类别从小到大、类别内按置信度从高到低输出
+     */
+    private List<Detection> suppress(float[] boxes, float[] scores, int[] labels, int count) {
+        int[] keep = softNms
+                ? ImageUtil.softNonMaxSuppression(boxes, scores, labels, count, SOFT_NMS_SIGMA, this.confThreshold)
+                : ImageUtil.nonMaxSuppression(boxes, scores, labels, count, this.iouThreshold);
+        if (softNms) {
+            // Soft-NMS 按选中顺序返回，按类别稳定排序以保持输出顺序一致
+            keep = Arrays.stream(keep).boxed().sorted(Comparator.comparingInt(i -> labels[i])).mapToInt(Integer::intValue).toArray();
+        }
+        List<Detection> detectionList = new ArrayList<>(keep.length);
+        for (int i : keep) {
+            int label = labels[i];
+            if (label < labelNames.size()) {
+                detectionList.add(new Detection(labelNames.get(label), label, Arrays.copyOfRange(boxes, i * 4, i * 4 + 4), scores[i]));
+            } else {
+                log.warn("label: {}", label);
+            }
+        }
+        return detectionList;
+    }
+
+    private Scratch scratch(int numAnchors) {
+        Scratch scratch = scratches.get();
+        if (scratch == null || scratch.maxConf.length < numAnchors) {
+            scratch = new Scratch(numAnchors);
+            scratches.set(scratch);
+        }
+        return scratch;
+    }
+
+    private static final class Scratch {
+
+        private final float[] maxConf;
+        private final int[] maxLabel;
+        private final float[] row;
+        private final float[] boxes;
+        private final float[] scores;
+        private final int[] labels;
+
+        Scratch(int numAnchors) {
+            this.maxConf = new float[numAnchors];
+            this.maxLabel = new int[numAnchors];
+            this.row = new float[numAnchors];
+            this.boxes = new float[numAnchors * 4];
+            this.scores = new float[numAnchors];
+            this.labels = new int[numAnchors];
+        }
+    }
+
+}
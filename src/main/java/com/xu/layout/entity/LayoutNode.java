@@ -2,22 +2,58 @@ package com.xu.layout.entity;
 
 import lombok.Getter;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Consumer;
 
 /**
  * @author xuzc
  * <p>
- * 树形结构表示布局的节点，处理遍历和布局树构建
+ * 树形结构表示布局的节点，处理遍历和布局树构建。
+ * <p>
+ * 页面布局树的结构为 页面 → 标题段落 → 列 → 区域块，先序遍历的结果即阅读顺序
  */
 public class LayoutNode {
 
+    /**
+     * 节点类型
+     */
+    public enum Type {
+        /**
+         * 页面根节点，没有内容
+         */
+        PAGE,
+        /**
+         * 标题段落，内容为标题块；第一个标题之前的区域块所在段落没有内容
+         */
+        SECTION,
+        /**
+         * 列，没有内容
+         */
+        COLUMN,
+        /**
+         * 区域块
+         */
+        BLOCK
+    }
+
+    @Getter
+    private final Type type;
+
     public RegionBlock content;
 
     @Getter
     public List<LayoutNode> children = new ArrayList<>();
 
     public LayoutNode(RegionBlock content) {
+        this(Type.BLOCK, content);
+    }
+
+    public LayoutNode(Type type, RegionBlock content) {
+        this.type = type;
         this.content = content;
     }
 
@@ -37,14 +73,27 @@ public class LayoutNode {
     // 预序遍历，获取该节点及其子节点的内容
     public List<RegionBlock> preorderTraverse() {
         List<RegionBlock> result = new ArrayList<>();
-        if (content != null) {
-            result.add(content);
-        }
-        for (LayoutNode child : children) {
-            result.addAll(child.preorderTraverse());
-        }
+        preorderTraverse(result::add);
         return result;
     }
 
+    /**
+     * 非递归的先序遍历，按顺序把该节点及其子节点的非空内容交给 visitor，树的深度不受调用栈限制
+     */
+    public void preorderTraverse(Consumer<RegionBlock> visitor) {
+        Deque<LayoutNode> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            LayoutNode node = stack.pop();
+            if (node.content != null) {
+                visitor.accept(node.content);
+            }
+            // 子节点逆序入栈，出栈时保持原有顺序
+            ListIterator<LayoutNode> iterator = node.children.listIterator(node.children.size());
+            while (iterator.hasPrevious()) {
+                stack.push(iterator.previous());
+            }
+        }
+    }
 
 }
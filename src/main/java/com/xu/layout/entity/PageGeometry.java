@@ -0,0 +1,96 @@
+package com.xu.layout.entity;
+
+import lombok.Getter;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+/**
+ * @author xuzc
+ * <p>
+ * 页面可见区域（cropBox）与旋转角度，描述页面图像与 PDF 坐标之间的换算。
+ * 页面图像是按 /Rotate 旋转后的 cropBox，渲染、区域文本提取与结果输出共用这一套换算
+ */
+@Getter
+public final class PageGeometry {
+
+    /**
+     * cropBox 在用户空间中的左下角坐标及尺寸（点），尺寸为旋转前的宽高
+     */
+    private final float cropX;
+
+    private final float cropY;
+
+    private final float width;
+
+    private final float height;
+
+    /**
+     * 页面显示时顺时针旋转的角度（/Rotate），取值 0、90、180、270
+     */
+    private final int rotation;
+
+    public PageGeometry(float cropX, float cropY, float width, float height, int rotation) {
+        this.cropX = cropX;
+        this.cropY = cropY;
+        this.width = width;
+        this.height = height;
+        this.rotation = rotation;
+    }
+
+    /**
+     * 读取页面的 cropBox 与旋转角度，需在持有 PDDocument 的线程上调用
+     */
+    public static PageGeometry of(PDPage page) {
+        PDRectangle cropBox = page.getCropBox();
+        return new PageGeometry(cropBox.getLowerLeftX(), cropBox.getLowerLeftY(), cropBox.getWidth(), cropBox.getHeight(), page.getRotation());
+    }
+
+    /**
+     * 旋转 90/270 度的页面显示时宽高互换
+     */
+    public boolean isRotated() {
+        return rotation == 90 || rotation == 270;
+    }
+
+    /**
+     * 页面显示（即渲染图像）的宽高（点）
+     */
+    public float getDisplayWidth() {
+        return isRotated() ? height : width;
+    }
+
+    public float getDisplayHeight() {
+        return isRotated() ? width : height;
+    }
+
+    /**
+     * 将图像像素坐标的 [x1, y1, x2, y2] 映射为 PDF 默认用户空间坐标（点，原点在左下角，y 轴向上），
+     * 即与 PDRectangle 相同的坐标系，返回值满足 x1 <= x2、y1 <= y2。
+     * <p>
+     * 先按显示尺寸缩放到点，再逆向旋转并加上 cropBox 的偏移
+     */
+    public float[] toPdfBbox(float[] bbox, int imageWidth, int imageHeight) {
+        float scaleX = getDisplayWidth() / imageWidth;
+        float scaleY = getDisplayHeight() / imageHeight;
+        float[] p1 = toPdfPoint(bbox[0] * scaleX, bbox[1] * scaleY);
+        float[] p2 = toPdfPoint(bbox[2] * scaleX, bbox[3] * scaleY);
+        return new float[]{Math.min(p1[0], p2[0]), Math.min(p1[1], p2[1]), Math.max(p1[0], p2[0]), Math.max(p1[1], p2[1])};
+    }
+
+    /**
+     * 显示坐标（点，原点在旋转后页面的左上角）转为用户空间坐标
+     */
+    private float[] toPdfPoint(float u, float v) {
+        switch (rotation) {
+            case 90:
+                return new float[]{cropX + v, cropY + u};
+            case 180:
+                return new float[]{cropX + width - u, cropY + v};
+            case 270:
+                return new float[]{cropX + width - v, cropY + height - u};
+            default:
+                return new float[]{cropX + u, cropY + height - v};
+        }
+    }
+
+}
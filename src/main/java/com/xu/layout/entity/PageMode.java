@@ -0,0 +1,20 @@
+package com.xu.layout.entity;
+
+/**
+ * @author xuzc
+ * <p>
+ * 页面的渲染方式
+ */
+public enum PageMode {
+
+    /**
+     * 按渲染策略全彩渲染，扫描页及未开启快速路径时使用
+     */
+    FULL,
+
+    /**
+     * 页面有可见文本层，灰度、允许图像降采样、按模型输入尺寸渲染
+     */
+    TEXT_LAYER
+
+}
@@ -0,0 +1,124 @@
+package com.xu.layout.entity;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author xuzc
+ * <p>
+ * 单页布局检测结果，区域块已按阅读顺序排列
+ */
+@Getter
+@Builder
+public class PageResult {
+
+    /**
+     * 页码，从 0 开始
+     */
+    private final int pageIndex;
+
+    /**
+     * 页面的渲染方式及分辨率
+     */
+    private final PageMode pageMode;
+
+    private final float renderDpi;
+
+    /**
+     * 是否来自页面缓存，命中时各阶段耗时为 0
+     */
+    private final boolean cached;
+
+    /**
+     * PDF 页面可见区域（cropBox）在用户空间中的左下角坐标及尺寸（点），尺寸为旋转前的宽高
+     */
+    private final float cropX;
+
+    private final float cropY;
+
+    private final float pdfWidth;
+
+    private final float pdfHeight;
+
+    /**
+     * 页面显示时顺时针旋转的角度（/Rotate），取值 0、90、180、270
+     */
+    private final int rotation;
+
+    /**
+     * 检测所用页面图像的尺寸（像素），区域块 bbox 基于该坐标系
+     */
+    private final int imageWidth;
+
+    private final int imageHeight;
+
+    /**
+     * 按阅读顺序排列的区域块
+     */
+    private final List<RegionBlock> blocks;
+
+    /**
+     * 页面布局树（页面 → 标题段落 → 列 → 区域块），先序遍历与 blocks 一致；来自页面缓存时由缓存还原
+     */
+    private final LayoutNode layoutTree;
+
+    /**
+     * 各阶段耗时（毫秒）
+     */
+    private final long renderMillis;
+
+    private final long detectMillis;
+
+    private final long extractMillis;
+
+    private final long layoutMillis;
+
+    public long getTotalMillis() {
+        return renderMillis + detectMillis + extractMillis + layoutMillis;
+    }
+
+    /**
+     * 将图像像素坐标的 [x1, y1, x2, y2] 映射为 PDF 默认用户空间坐标（点，原点在左下角，y 轴向上），
+     * 即与 PDRectangle 相同的坐标系，返回值满足 x1 <= x2、y1 <= y2
+     *
+     * @see PageGeometry#toPdfBbox(float[], int, int)
+     */
+    public float[] toPdfBbox(float[] bbox) {
+        return getGeometry().toPdfBbox(bbox, imageWidth, imageHeight);
+    }
+
+    public PageGeometry getGeometry() {
+        return new PageGeometry(cropX, cropY, pdfWidth, pdfHeight, rotation);
+    }
+
+    /**
+     * 去除换行后逐块拼接的页面文本
+     */
+    public String getContent() {
+        return blocks.stream().map(RegionBlock::getSimpleContent).collect(Collectors.joining("\n"));
+    }
+
+    public static class PageResultBuilder {
+
+        /**
+         * 按页面的 cropBox 与旋转角度设置页面几何信息，与 PageRenderer 渲染页面图像时一致
+         */
+        public PageResultBuilder pdfPage(PDPage page) {
+            return geometry(PageGeometry.of(page));
+        }
+
+        public PageResultBuilder geometry(PageGeometry geometry) {
+            return cropX(geometry.getCropX())
+                    .cropY(geometry.getCropY())
+                    .pdfWidth(geometry.getWidth())
+                    .pdfHeight(geometry.getHeight())
+                    .rotation(geometry.getRotation());
+        }
+
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.xu.layout.exception;
+
+/**
+ * @author xuzc
+ * <p>
+ * PDF 加载或页面处理失败
+ */
+public class LayoutExtractException extends RuntimeException {
+    public LayoutExtractException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
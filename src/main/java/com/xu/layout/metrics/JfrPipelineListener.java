@@ -0,0 +1,73 @@
+package com.xu.layout.metrics;
+
+import jdk.jfr.*;
+
+import java.util.Map;
+
+/**
+ * @author xuzc
+ * <p>
+ * 把流水线埋点转为 JFR 事件，事件在 JFR 录制开启时才会生成，未录制时开销可忽略。
+ * <p>
+ * 例如 {@code -XX:StartFlightRecording=filename=layout.jfr}，再用 JMC 或 {@code jfr print --events layout4j.*} 查看
+ */
+public class JfrPipelineListener implements PipelineListener {
+
+    @Override
+    public void stageCompleted(int pageIndex, PipelineStage stage, long nanos) {
+        StageEvent event = new StageEvent();
+        if (event.isEnabled()) {
+            event.pageIndex = pageIndex;
+            event.stage = stage.name();
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void detectionsCounted(int pageIndex, Map<String, Integer> labelCounts) {
+        labelCounts.forEach((label, count) -> {
+            DetectionEvent event = new DetectionEvent();
+            if (event.isEnabled()) {
+                event.pageIndex = pageIndex;
+                event.label = label;
+                event.count = count;
+                event.commit();
+            }
+        });
+    }
+
+    @Name("layout4j.PipelineStage")
+    @Label("Pipeline Stage")
+    @Category("layout4j")
+    @StackTrace(false)
+    static class StageEvent extends Event {
+
+        @Label("Page Index")
+        int pageIndex;
+
+        @Label("Stage")
+        String stage;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("layout4j.Detections")
+    @Label("Detections")
+    @Category("layout4j")
+    @StackTrace(false)
+    static class DetectionEvent extends Event {
+
+        @Label("Page Index")
+        int pageIndex;
+
+        @Label("Label")
+        String label;
+
+        @Label("Count")
+        int count;
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.xu.layout.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author xuzc
+ * <p>
+ * 内存中的指标汇总：各阶段的次数、总耗时、最大耗时，各标签的检测框数量及页面缓存命中数。
+ * 可在多个文档、多个 LayoutExtractor 之间共享，用于判断慢文档耗时在推理还是 PDFBox 上
+ */
+public class MetricsCollector implements PipelineListener {
+
+    private final Map<PipelineStage, StageTimer> timers = new EnumMap<>(PipelineStage.class);
+
+    private final Map<String, LongAdder> labelCounts = new ConcurrentHashMap<>();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    public MetricsCollector() {
+        for (PipelineStage stage : PipelineStage.values()) {
+            timers.put(stage, new StageTimer());
+        }
+    }
+
+    @Override
+    public void stageCompleted(int pageIndex, PipelineStage stage, long nanos) {
+        timers.get(stage).record(nanos);
+    }
+
+    @Override
+    public void detectionsCounted(int pageIndex, Map<String, Integer> labelCounts) {
+        labelCounts.forEach((label, count) -> this.labelCounts.computeIfAbsent(label, key -> new LongAdder()).add(count));
+    }
+
+    @Override
+    public void pageCacheHit(int pageIndex) {
+        cacheHits.increment();
+    }
+
+    public StageStats getStageStats(PipelineStage stage) {
+        return timers.get(stage).snapshot();
+    }
+
+    /**
+     * @return 各标签累计的检测框数量，按标签名排序
+     */
+    public Map<String, Long> getLabelCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        labelCounts.forEach((label, count) -> counts.put(label, count.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * 清空已汇总的指标，与并发的回调之间不保证原子性
+     */
+    public void reset() {
+        timers.values().forEach(StageTimer::reset);
+        labelCounts.clear();
+        cacheHits.reset();
+    }
+
+    /**
+     * 每个阶段一行的汇总，便于直接写入日志
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (PipelineStage stage : PipelineStage.values()) {
+            StageStats stats = getStageStats(stage);
+            if (stats.count() > 0) {
+                builder.append(String.format("%-16s count=%d total=%dms mean=%.2fms max=%.2fms%n", stage, stats.count(),
+                        TimeUnit.NANOSECONDS.toMillis(stats.totalNanos()), stats.meanMillis(), stats.maxNanos() / 1e6));
+            }
+        }
+        builder.append("labels=").append(getLabelCounts()).append(" cacheHits=").append(getCacheHits());
+        return builder.toString();
+    }
+
+    /**
+     * 单个阶段的汇总
+     *
+     * @param count      次数
+     * @param totalNanos 总耗时（纳秒）
+     * @param maxNanos   单次最大耗时（纳秒）
+     */
+    public record StageStats(long count, long totalNanos, long maxNanos) {
+
+        public double meanMillis() {
+            return count == 0 ? 0 : totalNanos / 1e6 / count;
+        }
+    }
+
+    private static final class StageTimer {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        StageStats snapshot() {
+            return new StageStats(count.sum(), totalNanos.sum(), maxNanos.get());
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+
+}
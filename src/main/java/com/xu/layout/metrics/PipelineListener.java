@@ -0,0 +1,68 @@
+package com.xu.layout.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author xuzc
+ * <p>
+ * 流水线埋点回调，通过 ExtractorOptions.pipelineListener 注册。
+ * <p>
+ * 回调在渲染、推理、Figure 等不同线程上并发触发，实现需线程安全且尽量轻量；回调抛出的异常只记录日志，不影响页面处理
+ */
+public interface PipelineListener {
+
+    /**
+     * 不做任何处理的监听器
+     */
+    PipelineListener NONE = new PipelineListener() {
+    };
+
+    /**
+     * 某页的一个阶段执行完成，FIGURE_* 阶段每个 Figure 回调一次
+     *
+     * @param pageIndex 页码，从 0 开始
+     * @param stage     阶段
+     * @param nanos     耗时（纳秒）
+     */
+    default void stageCompleted(int pageIndex, PipelineStage stage, long nanos) {
+    }
+
+    /**
+     * 某页模型检测完成
+     *
+     * @param labelCounts 各标签的检测框数量
+     */
+    default void detectionsCounted(int pageIndex, Map<String, Integer> labelCounts) {
+    }
+
+    /**
+     * 某页命中页面缓存，跳过了渲染、推理和文本提取
+     */
+    default void pageCacheHit(int pageIndex) {
+    }
+
+    /**
+     * 依次回调多个监听器
+     */
+    static PipelineListener compose(PipelineListener... listeners) {
+        List<PipelineListener> delegates = List.of(listeners);
+        return new PipelineListener() {
+            @Override
+            public void stageCompleted(int pageIndex, PipelineStage stage, long nanos) {
+                delegates.forEach(listener -> listener.stageCompleted(pageIndex, stage, nanos));
+            }
+
+            @Override
+            public void detectionsCounted(int pageIndex, Map<String, Integer> labelCounts) {
+                delegates.forEach(listener -> listener.detectionsCounted(pageIndex, labelCounts));
+            }
+
+            @Override
+            public void pageCacheHit(int pageIndex) {
+                delegates.forEach(listener -> listener.pageCacheHit(pageIndex));
+            }
+        };
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.xu.layout.metrics;
+
+/**
+ * @author xuzc
+ * <p>
+ * 单页处理流水线的阶段
+ */
+public enum PipelineStage {
+
+    /**
+     * PDF 页面渲染为图像（PDFBox）
+     */
+    RENDER,
+
+    /**
+     * 图像缩放、归一化并写入模型输入张量
+     */
+    PREPROCESS,
+
+    /**
+     * 模型推理（onnxruntime）
+     */
+    INFERENCE,
+
+    /**
+     * 输出张量解码及 NMS
+     */
+    DECODE,
+
+    /**
+     * 按检测区域提取页面文本（PDFBox）
+     */
+    TEXT_EXTRACTION,
+
+    /**
+     * 单个 Figure 区域的裁剪或重新渲染（PDFBox）
+     */
+    FIGURE_RENDER,
+
+    /**
+     * 单个 Figure 图像的编码
+     */
+    FIGURE_ENCODE,
+
+    /**
+     * 单个 Figure 的上传，从提交到 FigureResolver 返回 URL
+     */
+    FIGURE_RESOLVE,
+
+    /**
+     * 布局排序
+     */
+    LAYOUT
+
+}
@@ -0,0 +1,68 @@
+package com.xu.layout.output;
+
+import com.xu.layout.entity.PageResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * @author xuzc
+ * <p>
+ * 结构化文档输出：文档 -> 页 -> 按阅读顺序排列的区域块。
+ * 每收到一页立即写出并刷新，可直接作为 LayoutExtractor.detectionPdf 的回调，整个文档不驻留内存；
+ * close 时写出文档结尾并关闭底层 Writer
+ */
+public abstract class DocumentWriter implements Consumer<PageResult>, Closeable {
+
+    protected final Writer writer;
+
+    private boolean started;
+
+    private boolean closed;
+
+    protected DocumentWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void accept(PageResult pageResult) {
+        try {
+            if (!started) {
+                started = true;
+                writeStart();
+            }
+            writePage(pageResult);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!started) {
+                started = true;
+                writeStart();
+            }
+            writeEnd();
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    protected abstract void writeStart() throws IOException;
+
+    protected abstract void writePage(PageResult pageResult) throws IOException;
+
+    protected abstract void writeEnd() throws IOException;
+
+}
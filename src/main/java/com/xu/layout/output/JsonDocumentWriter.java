@@ -0,0 +1,125 @@
+package com.xu.layout.output;
+
+import com.xu.layout.entity.PageResult;
+import com.xu.layout.entity.RegionBlock;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * @author xuzc
+ * <p>
+ * 以 JSON 流式输出文档结构：
+ * <pre>
+ * {"pages":[{"pageIndex":0,"width":595.0,"height":842.0,"rotation":0,"blocks":[
+ *   {"label":"Title","bbox":[x1,y1,x2,y2],"confidence":0.92,"text":"..."}]}]}
+ * </pre>
+ * bbox 为 PDF 默认用户空间坐标（点，原点在左下角，y 轴向上，x1 <= x2、y1 <= y2），已还原页面旋转与 cropBox 偏移，
+ * 可直接与 PDFBox 的 PDRectangle 比较；width、height 为旋转前 cropBox 的尺寸，rotation 为页面的 /Rotate 角度。
+ * 退化的检测框可能产生 NaN 或无穷大的坐标，这些数值输出为 null
+ */
+public class JsonDocumentWriter extends DocumentWriter {
+
+    private boolean firstPage = true;
+
+    public JsonDocumentWriter(Writer writer) {
+        super(writer);
+    }
+
+    @Override
+    protected void writeStart() throws IOException {
+        writer.write("{\"pages\":[");
+    }
+
+    @Override
+    protected void writePage(PageResult pageResult) throws IOException {
+        if (!firstPage) {
+            writer.write(',');
+        }
+        firstPage = false;
+        writer.write("{\"pageIndex\":");
+        writer.write(Integer.toString(pageResult.getPageIndex()));
+        writer.write(",\"width\":");
+        writeNumber(pageResult.getPdfWidth());
+        writer.write(",\"height\":");
+        writeNumber(pageResult.getPdfHeight());
+        writer.write(",\"rotation\":");
+        writer.write(Integer.toString(pageResult.getRotation()));
+        writer.write(",\"blocks\":[");
+        boolean firstBlock = true;
+        for (RegionBlock block : pageResult.getBlocks()) {
+            if (!firstBlock) {
+                writer.write(',');
+            }
+            firstBlock = false;
+            writer.write("{\"label\":");
+            writeString(block.getLabel());
+            writer.write(",\"bbox\":[");
+            float[] bbox = pageResult.toPdfBbox(block.getBbox());
+            for (int i = 0; i < bbox.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeNumber(bbox[i]);
+            }
+            writer.write("],\"confidence\":");
+            writeNumber(block.getConfidence());
+            writer.write(",\"text\":");
+            writeString(block.getContent());
+            writer.write('}');
+        }
+        writer.write("]}");
+    }
+
+    @Override
+    protected void writeEnd() throws IOException {
+        writer.write("]}");
+    }
+
+    /**
+     * 保留两位小数；NaN、无穷大不是合法的 JSON 数值，输出为 null
+     */
+    private void writeNumber(float value) throws IOException {
+        if (!Float.isFinite(value)) {
+            writer.write("null");
+            return;
+        }
+        writer.write(Float.toString(Math.round(value * 100f) / 100f));
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+}
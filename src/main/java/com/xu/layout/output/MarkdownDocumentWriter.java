@@ -0,0 +1,60 @@
+package com.xu.layout.output;
+
+import com.xu.layout.entity.PageResult;
+import com.xu.layout.entity.RegionBlock;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * @author xuzc
+ * <p>
+ * 以 Markdown 流式输出文档：Title 输出为二级标题，Equation 输出为公式块，
+ * Figure 保留图片标签，其余区域块按段落输出并保留原有换行；每页以注释标记页码。
+ * 标签忽略大小写，与布局排序识别标题的方式一致
+ */
+public class MarkdownDocumentWriter extends DocumentWriter {
+
+    public MarkdownDocumentWriter(Writer writer) {
+        super(writer);
+    }
+
+    @Override
+    protected void writeStart() {
+    }
+
+    @Override
+    protected void writePage(PageResult pageResult) throws IOException {
+        writer.write("<!-- page " + (pageResult.getPageIndex() + 1) + " -->\n\n");
+        for (RegionBlock block : pageResult.getBlocks()) {
+            String text = block.getContent() == null ? "" : block.getContent().strip();
+            if (text.isEmpty()) {
+                continue;
+            }
+            switch (normalizeLabel(block.getLabel())) {
+                case "title":
+                    writer.write("## ");
+                    writer.write(block.getSimpleContent().strip());
+                    break;
+                case "equation":
+                    writer.write("$$\n");
+                    writer.write(text);
+                    writer.write("\n$$");
+                    break;
+                default:
+                    writer.write(text);
+            }
+            writer.write("\n\n");
+        }
+    }
+
+    @Override
+    protected void writeEnd() {
+    }
+
+    private static String normalizeLabel(String label) {
+        return label == null ? "" : label.toLowerCase(Locale.ROOT);
+    }
+
+}
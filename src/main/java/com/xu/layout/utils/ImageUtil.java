@@ -26,22 +26,42 @@ public class ImageUtil {
         return chw;
     }
 
+    /**
+     * 标签颜色，下标为标签序号，超出范围时使用黑色
+     */
+    private static final Color[] LABEL_COLORS = {
+            new Color(220, 50, 0),
+            new Color(0, 200, 0),
+            new Color(0, 0, 200),
+            new Color(200, 200, 0),
+            new Color(200, 0, 200),
+            new Color(0, 200, 200),
+            new Color(200, 100, 60),
+            new Color(60, 50, 249),
+            new Color(10, 60, 249),
+            new Color(60, 100, 10),
+            new Color(80, 100, 30)
+    };
+
+    private static final Stroke BOX_STROKE = new BasicStroke(2);
+
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 12);
+
     public static void drawPredictions(BufferedImage image, List<RegionBlock> regionBlocks) {
         Graphics2D g2d = image.createGraphics();
+        g2d.setStroke(BOX_STROKE);
+        g2d.setFont(LABEL_FONT);
 
         for (int i = 0; i < regionBlocks.size(); i++) {
             RegionBlock regionBlock = regionBlocks.get(i);
             float[] bbox = regionBlock.getBbox();
-            Color color = getColorForLabel(regionBlock.getLabelIndex());
 
             // 绘制矩形框
-            g2d.setColor(color);
-            g2d.setStroke(new BasicStroke(2));
+            g2d.setColor(getColorForLabel(regionBlock.getLabelIndex()));
             g2d.drawRect((int) bbox[0], (int) bbox[1],
                     (int) (bbox[2] - bbox[0]), (int) (bbox[3] - bbox[1]));
 
             // 绘制标签文字
-            g2d.setFont(new Font("Arial", Font.PLAIN, 12));
             g2d.drawString(regionBlock.getLabel() + "--" + i + "--" + regionBlock.getConfidence(),
                     (int) bbox[0] - 1, (int) bbox[1] - 5);
         }
@@ -49,19 +69,7 @@ public class ImageUtil {
     }
 
     private static Color getColorForLabel(int labelIndex) {
-        Map<Integer, Color> colorMap = new HashMap<>();
-        colorMap.put(0, new Color(220, 50, 0));
-        colorMap.put(1, new Color(0, 200, 0));
-        colorMap.put(2, new Color(0, 0, 200));
-        colorMap.put(3, new Color(200, 200, 0));
-        colorMap.put(4, new Color(200, 0, 200));
-        colorMap.put(5, new Color(0, 200, 200));
-        colorMap.put(6, new Color(200, 100, 60));
-        colorMap.put(7, new Color(60, 50, 249));
-        colorMap.put(8, new Color(10, 60, 249));
-        colorMap.put(9, new Color(60, 100, 10));
-        colorMap.put(10, new Color(80, 100, 30));
-        return colorMap.getOrDefault(labelIndex, Color.BLACK);
+        return labelIndex >= 0 && labelIndex < LABEL_COLORS.length ? LABEL_COLORS[labelIndex] : Color.BLACK;
     }
 
     public static void xywh2xyxy(float[] bbox) {
@@ -75,6 +83,12 @@ public class ImageUtil {
         bbox[3] = y + h * 0.5f;
     }
 
+    /**
+     * 基于 List 与 Stream 的非极大值抑制，每保留一个框都会重建剩余列表
+     *
+     * @deprecated 使用基于原始数组的 {@link #nonMaxSuppression(float[], float[], int[], int, float)}
+     */
+    @Deprecated
     public static List<float[]> nonMaxSuppression(List<float[]> bboxes, float iouThreshold) {
         // output boxes
         List<float[]> bestBboxes = new ArrayList<>();
@@ -89,6 +103,158 @@ public class ImageUtil {
         return bestBboxes;
     }
 
+    /**
+     * 基于原始数组的非极大值抑制
+     * <p>
+     * 按置信度排序一次（O(n log n)），用位图标记被抑制的框，不再每轮重建候选列表。
+     * labels 不为空时按类别批量抑制：一次遍历处理所有类别，只有同类别的框之间相互抑制。
+     *
+     * @param boxes        [x1, y1, x2, y2] 依次排列的检测框，长度至少为 count * 4
+     * @param scores       置信度
+     * @param labels       类别，为 null 时不区分类别
+     * @param count        检测框数量
+     * @param iouThreshold IOU 大于等于该值的低分框被抑制
+     * @return 保留框的下标，按类别从小到大分组，组内按置信度从高到低排列
+     */
+    public static int[] nonMaxSuppression(float[] boxes, float[] scores, int[] labels, int count, float iouThreshold) {
+        int[] order = sortByScoreDesc(scores, count);
+        // 按类别稳定分组，组内保持置信度从高到低，同类别的框在 order 中连续
+        int[] groupEnds = labels == null ? new int[]{count} : groupByLabel(order, labels);
+        float[] areas = areas(boxes, count);
+        long[] suppressed = new long[(count + 63) >>> 6];
+        int[] keep = new int[count];
+        int kept = 0;
+        int groupStart = 0;
+        for (int groupEnd : groupEnds) {
+            for (int i = groupStart; i < groupEnd; i++) {
+                int best = order[i];
+                if ((suppressed[best >>> 6] & (1L << best)) != 0) {
+                    continue;
+                }
+                keep[kept++] = best;
+                for (int j = i + 1; j < groupEnd; j++) {
+                    int other = order[j];
+                    if ((suppressed[other >>> 6] & (1L << other)) == 0 && computeIOU(boxes, areas, other, best) >= iouThreshold) {
+                        suppressed[other >>> 6] |= 1L << other;
+                    }
+                }
+            }
+            groupStart = groupEnd;
+        }
+        return Arrays.copyOf(keep, kept);
+    }
+
+    /**
+     * Soft-NMS（高斯衰减）：与高分框重叠的框不直接删除，而是按 exp(-iou² / sigma) 衰减置信度，
+     * 衰减后低于 scoreThreshold 的框才被丢弃，适合表格、密集文本等相邻区域容易互相抑制的页面
+     *
+     * @param boxes          [x1, y1, x2, y2] 依次排列的检测框
+     * @param scores         置信度，衰减结果会直接写回该数组
+     * @param labels         类别，为 null 时不区分类别
+     * @param count          检测框数量
+     * @param sigma          高斯衰减参数
+     * @param scoreThreshold 衰减后的最低置信度
+     * @return 保留框的下标，按选中顺序排列
+     */
+    public static int[] softNonMaxSuppression(float[] boxes, float[] scores, int[] labels, int count, float sigma, float scoreThreshold) {
+        float[] areas = areas(boxes, count);
+        boolean[] done = new boolean[count];
+        int[] keep = new int[count];
+        int kept = 0;
+        while (true) {
+            int best = -1;
+            for (int i = 0; i < count; i++) {
+                if (!done[i] && scores[i] >= scoreThreshold && (best < 0 || scores[i] > scores[best])) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            done[best] = true;
+            keep[kept++] = best;
+            for (int i = 0; i < count; i++) {
+                if (done[i] || (labels != null && labels[i] != labels[best])) {
+                    continue;
+                }
+                float iou = computeIOU(boxes, areas, i, best);
+                scores[i] *= (float) Math.exp(-(iou * iou) / sigma);
+            }
+        }
+        return Arrays.copyOf(keep, kept);
+    }
+
+    /**
+     * 按置信度从高到低排序下标；置信度相同时下标大的在前，与基于 List 的实现保持一致
+     */
+    private static int[] sortByScoreDesc(float[] scores, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int bits = Float.floatToIntBits(scores[i]);
+            // 转换为与浮点大小顺序一致的有符号整数
+            bits ^= (bits >> 31) & 0x7fffffff;
+            keys[i] = ((long) bits << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) keys[count - 1 - i];
+        }
+        return order;
+    }
+
+    /**
+     * 按类别对 order 做稳定的计数排序，返回每个类别分组在 order 中的结束位置
+     */
+    private static int[] groupByLabel(int[] order, int[] labels) {
+        int numLabels = 0;
+        for (int index : order) {
+            numLabels = Math.max(numLabels, labels[index] + 1);
+        }
+        int[] groupEnds = new int[numLabels];
+        for (int index : order) {
+            groupEnds[labels[index]]++;
+        }
+        for (int label = 1; label < numLabels; label++) {
+            groupEnds[label] += groupEnds[label - 1];
+        }
+        int[] sorted = new int[order.length];
+        int[] next = new int[numLabels];
+        for (int label = 1; label < numLabels; label++) {
+            next[label] = groupEnds[label - 1];
+        }
+        for (int index : order) {
+            sorted[next[labels[index]]++] = index;
+        }
+        System.arraycopy(sorted, 0, order, 0, order.length);
+        return groupEnds;
+    }
+
+    private static float[] areas(float[] boxes, int count) {
+        float[] areas = new float[count];
+        for (int i = 0; i < count; i++) {
+            int p = i * 4;
+            areas[i] = (boxes[p + 2] - boxes[p]) * (boxes[p + 3] - boxes[p + 1]);
+        }
+        return areas;
+    }
+
+    private static float computeIOU(float[] boxes, float[] areas, int i, int j) {
+        int p = i * 4;
+        int q = j * 4;
+        float left = Math.max(boxes[p], boxes[q]);
+        float top = Math.max(boxes[p + 1], boxes[q + 1]);
+        float right = Math.min(boxes[p + 2], boxes[q + 2]);
+        float bottom = Math.min(boxes[p + 3], boxes[q + 3]);
+        if (right <= left || bottom <= top) {
+            return 1e-8f;
+        }
+
+        float interArea = (right - left) * (bottom - top);
+        float unionArea = areas[i] + areas[j] - interArea;
+        return Math.max(interArea / unionArea, 1e-8f);
+    }
+
     public static float computeIOU(float[] box1, float[] box2) {
         float area1 = (box1[2] - box1[0]) * (box1[3] - box1[1]);
         float area2 = (box2[2] - box2[0]) * (box2[3] - box2[1]);
@@ -1,6 +1,8 @@
 package com.xu.layout.utils;
 
 import java.util.UUID;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author xuzc
@@ -10,5 +12,17 @@ public class Utils {
     public static String generateUUID() {
         return UUID.randomUUID().toString().replace("-", "");
     }
-    
+
+    /**
+     * 创建带名称前缀的守护线程工厂
+     */
+    public static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
 }
@@ -0,0 +1,218 @@
+package com.xu.layout;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.xu.layout.core.ColumnDetector;
+import com.xu.layout.entity.RegionBlock;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author xuzc
+ */
+public class ColumnDetectorTest {
+
+    private static final String[] PDFS = {"研报.pdf", "石油报.pdf", "Attention Is All You Need.pdf", "三季度报.pdf"};
+
+    /**
+     * 以 PDF 每页的文本行作为区域块，与原实现逐页比较；每页的前半部分模拟标题分段后的调用
+     */
+    @Test
+    public void bundledPdfTest() throws IOException {
+        for (String pdf : PDFS) {
+            try (InputStream inputStream = ResourceUtil.getStream(pdf); PDDocument document = PDDocument.load(inputStream)) {
+                for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                    LineCollector collector = new LineCollector();
+                    collector.setStartPage(page);
+                    collector.setEndPage(page);
+                    collector.writeText(document, new StringWriter());
+                    assertSameColumns(collector.blocks);
+                    assertSameColumns(collector.blocks.subList(0, collector.blocks.size() / 2));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void randomBlocksTest() {
+        Random random = new Random(5);
+        for (int round = 0; round < 300; round++) {
+            int columns = 1 + random.nextInt(8);
+            float columnWidth = 1200f / columns;
+            List<RegionBlock> blocks = new ArrayList<>();
+            int count = random.nextInt(400);
+            for (int i = 0; i < count; i++) {
+                int col = random.nextInt(columns);
+                float x1 = col * columnWidth + random.nextFloat() * 30;
+                float width = random.nextInt(6) == 0 ? random.nextFloat() * 1200 : columnWidth * (0.3f + random.nextFloat() * 0.7f) - 20;
+                float y1 = random.nextFloat() * 1700;
+                blocks.add(new RegionBlock("Text", 0, "block-" + i, new float[]{x1, y1, x1 + width, y1 + 20}, 0.9f));
+            }
+            assertSameColumns(blocks);
+        }
+    }
+
+    private static void assertSameColumns(List<RegionBlock> blocks) {
+        Map<Integer, List<RegionBlock>> expected = LegacyColumnDetector.detectColumns(new ArrayList<>(blocks));
+        Map<Integer, List<RegionBlock>> actual = ColumnDetector.detectColumns(new ArrayList<>(blocks));
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<Integer, List<RegionBlock>> entry : expected.entrySet()) {
+            List<RegionBlock> actualColumn = actual.get(entry.getKey());
+            assertEquals(entry.getValue().size(), actualColumn.size());
+            for (int i = 0; i < actualColumn.size(); i++) {
+                assertSame(entry.getValue().get(i), actualColumn.get(i));
+            }
+        }
+    }
+
+    /**
+     * 收集每段连续文本的包围盒，坐标按 150 DPI 换算为图像像素
+     */
+    static final class LineCollector extends PDFTextStripper {
+
+        final List<RegionBlock> blocks = new ArrayList<>();
+
+        LineCollector() throws IOException {
+            setSortByPosition(true);
+        }
+
+        @Override
+        protected void writeString(String text, List<TextPosition> textPositions) {
+            if (textPositions.isEmpty() || text.isBlank()) {
+                return;
+            }
+            float x1 = Float.MAX_VALUE, y1 = Float.MAX_VALUE, x2 = 0, y2 = 0;
+            for (TextPosition position : textPositions) {
+                x1 = Math.min(x1, position.getXDirAdj());
+                y1 = Math.min(y1, position.getYDirAdj() - position.getHeightDir());
+                x2 = Math.max(x2, position.getXDirAdj() + position.getWidthDirAdj());
+                y2 = Math.max(y2, position.getYDirAdj());
+            }
+            float scale = 150f / 72f;
+            blocks.add(new RegionBlock("Text", 0, text, new float[]{x1 * scale, y1 * scale, x2 * scale, y2 * scale}, 0.9f));
+        }
+    }
+
+    /**
+     * 改写前的实现，作为对照
+     */
+    static final class LegacyColumnDetector {
+
+        static Map<Integer, List<RegionBlock>> detectColumns(List<RegionBlock> texts) {
+            // 存储每个文本块的 x1 和 x2
+            List<Float> xStarts = new ArrayList<>();
+            List<Float> xEnds = new ArrayList<>();
+
+            for (RegionBlock text : texts) {
+                float x1 = text.getBbox()[0];
+                float x2 = text.getBbox()[2];
+                xStarts.add(x1);
+                xEnds.add(x2);
+            }
+
+            // 排序文本块的 x1 和 x2
+            List<Float> sortedStarts = new ArrayList<>(xStarts);
+            List<Float> sortedEnds = new ArrayList<>(xEnds);
+            Collections.sort(sortedStarts);
+            Collections.sort(sortedEnds);
+
+            // 计算文本块之间的间距（忽略异常值）
+            List<Float> gaps = new ArrayList<>();
+            for (int i = 1; i < sortedStarts.size(); i++) {
+                float gap = sortedStarts.get(i) - sortedEnds.get(i - 1);
+                // 排除间距过大的情况，比如页面空白部分
+                // 只考虑合理的间距
+                if (gap > 10) {
+                    gaps.add(gap);
+                }
+            }
+
+            // 计算平均间距（稳定性更高）
+            float averageGap = (float) gaps.stream().mapToDouble(Float::doubleValue).average().orElse(0);
+            // 阈值最大为20
+            averageGap = Math.min(averageGap, 20f);
+
+            // 存储列的文本块
+            Map<Integer, List<RegionBlock>> columnsMap = new HashMap<>();
+            int columnIndex = 0;
+
+            for (RegionBlock text : texts) {
+                boolean assigned = false;
+                // 遍历现有列，判断当前文本块是否应该归入其中
+                for (Map.Entry<Integer, List<RegionBlock>> entry : columnsMap.entrySet()) {
+                    List<RegionBlock> column = entry.getValue();
+                    // 获取该列的范围（x1, x2）
+                    float columnStart = column.get(0).getBbox()[0];
+                    float columnEnd = column.get(column.size() - 1).getBbox()[2];
+
+                    // 判断当前文本块是否与已有列重叠（间距小于平均间距）
+                    if (isOverlap(text, columnStart, columnEnd, averageGap) || shouldMergeColumns(column, text, averageGap)) {
+                        column.add(text);
+                        assigned = true;
+                        break;
+                    }
+                }
+
+                // 如果没有找到合适的列，则新建一列
+                if (!assigned) {
+                    List<RegionBlock> newColumn = new ArrayList<>();
+                    newColumn.add(text);
+                    columnsMap.put(columnIndex++, newColumn);
+                }
+            }
+
+            // 返回列的 Map
+            return columnsMap;
+        }
+
+        private static boolean isOverlap(RegionBlock text, float columnStart, float columnEnd, float adjustedThreshold) {
+            // 判断当前文本块是否与列的范围重叠
+            float x1 = text.getBbox()[0];
+            float x2 = text.getBbox()[2];
+
+            // 如果文本块的范围与列的范围有交集，或者它们之间的间距小于调整后的阈值，则认为重叠
+            return !(x2 + adjustedThreshold < columnStart || x1 - adjustedThreshold > columnEnd);
+        }
+
+        // 判断是否需要合并列
+        private static boolean shouldMergeColumns(List<RegionBlock> column, RegionBlock text, float averageGap) {
+            // 获取列的宽度和当前文本块的宽度
+            float columnWidth = column.get(column.size() - 1).getBbox()[2] - column.get(0).getBbox()[0];
+            float textWidth = text.getBbox()[2] - text.getBbox()[0];
+
+            // 计算当前列内的密集度：列内所有文本块的平均宽度
+            double averageColumnWidth = column.stream()
+                    .map(b -> b.getBbox()[2] - b.getBbox()[0])
+                    .mapToDouble(Float::doubleValue)
+                    .average()
+                    .orElse(0.0);
+
+            // 容忍度：如果列内已有文本块密集，可能需要更宽松的合并条件
+            double widthTolerance = Math.max(averageGap, averageColumnWidth * 0.4f);
+
+            // 1. 判断文本块宽度与列宽度差异
+            boolean widthCondition = textWidth < columnWidth * 0.5f && Math.abs(columnWidth - textWidth) < widthTolerance;
+
+            // 2. 判断是否有足够重叠或接近
+            boolean overlapCondition = isOverlap(text, column.get(0).getBbox()[0], column.get(column.size() - 1).getBbox()[2], averageGap);
+
+            // 3. 判断文本块是否接近当前列的边界
+            float columnStart = column.get(0).getBbox()[0];
+            float columnEnd = column.get(column.size() - 1).getBbox()[2];
+            boolean boundaryCondition = Math.abs(columnStart - text.getBbox()[0]) < widthTolerance || Math.abs(columnEnd - text.getBbox()[2]) < widthTolerance;
+
+            return (widthCondition || overlapCondition || boundaryCondition);
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.xu.layout;
+
+import com.xu.layout.entity.PageResult;
+import com.xu.layout.entity.RegionBlock;
+import com.xu.layout.output.JsonDocumentWriter;
+import com.xu.layout.output.MarkdownDocumentWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author xuzc
+ */
+public class DocumentWriterTest {
+
+    /**
+     * 图像为 PDF 页面的 2 倍大小
+     */
+    private static PageResult pageResult(int pageIndex) {
+        return PageResult.builder()
+                .pageIndex(pageIndex)
+                .pdfWidth(600)
+                .pdfHeight(800)
+                .imageWidth(1200)
+                .imageHeight(1600)
+                .blocks(List.of(
+                        new RegionBlock("Title", 1, "标题\n", new float[]{100, 100, 500, 150}, 0.9f),
+                        new RegionBlock("Text", 0, "第一行 \"引号\"\n第二行\n", new float[]{100, 200, 1100, 601}, 0.85f)))
+                .build();
+    }
+
+    @Test
+    public void jsonTest() throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonDocumentWriter writer = new JsonDocumentWriter(out)) {
+            writer.accept(pageResult(0));
+            writer.accept(pageResult(1));
+        }
+        // bbox 为用户空间坐标，y 轴向上
+        String page = "\"width\":600.0,\"height\":800.0,\"rotation\":0,\"blocks\":["
+                + "{\"label\":\"Title\",\"bbox\":[50.0,725.0,250.0,750.0],\"confidence\":0.9,\"text\":\"标题\\n\"},"
+                + "{\"label\":\"Text\",\"bbox\":[50.0,499.5,550.0,700.0],\"confidence\":0.85,\"text\":\"第一行 \\\"引号\\\"\\n第二行\\n\"}]}";
+        assertEquals("{\"pages\":[{\"pageIndex\":0," + page + ",{\"pageIndex\":1," + page + "]}", out.toString());
+    }
+
+    /**
+     * 旋转 90 度且 cropBox 有偏移的页面：显示尺寸为 800x600，图像为其 2 倍大小
+     */
+    @Test
+    public void rotatedJsonTest() throws IOException {
+        PDPage pdfPage = new PDPage(new PDRectangle(700, 900));
+        pdfPage.setCropBox(new PDRectangle(50, 100, 600, 800));
+        pdfPage.setRotation(90);
+        PageResult pageResult = PageResult.builder()
+                .pdfPage(pdfPage)
+                .imageWidth(1600)
+                .imageHeight(1200)
+                .blocks(List.of(new RegionBlock("Title", 1, "标题", new float[]{100, 100, 500, 150}, 0.9f)))
+                .build();
+        StringWriter out = new StringWriter();
+        try (JsonDocumentWriter writer = new JsonDocumentWriter(out)) {
+            writer.accept(pageResult);
+        }
+        // 显示坐标的横轴对应用户空间 y 轴，纵轴对应 x 轴
+        assertEquals("{\"pages\":[{\"pageIndex\":0,\"width\":600.0,\"height\":800.0,\"rotation\":90,\"blocks\":["
+                + "{\"label\":\"Title\",\"bbox\":[100.0,150.0,125.0,350.0],\"confidence\":0.9,\"text\":\"标题\"}]}]}", out.toString());
+    }
+
+    /**
+     * 在用户空间中绘制已知位置的矩形，渲染各旋转角度的页面后，由图像中的矩形范围还原出原坐标
+     */
+    @Test
+    public void renderedRotationTest() throws IOException {
+        float[] expected = {150, 300, 350, 360};
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            try (PDDocument document = new PDDocument()) {
+                PDPage pdfPage = new PDPage(new PDRectangle(700, 900));
+                pdfPage.setCropBox(new PDRectangle(50, 100, 600, 700));
+                pdfPage.setRotation(rotation);
+                document.addPage(pdfPage);
+                try (PDPageContentStream stream = new PDPageContentStream(document, pdfPage)) {
+                    stream.addRect(expected[0], expected[1], expected[2] - expected[0], expected[3] - expected[1]);
+                    stream.fill();
+                }
+                BufferedImage image = new PDFRenderer(document).renderImageWithDPI(0, 144, ImageType.GRAY);
+                PageResult pageResult = PageResult.builder()
+                        .pdfPage(pdfPage)
+                        .imageWidth(image.getWidth())
+                        .imageHeight(image.getHeight())
+                        .blocks(List.of())
+                        .build();
+                assertArrayEquals("rotation " + rotation, expected, pageResult.toPdfBbox(darkBounds(image)), 1f);
+            }
+        }
+    }
+
+    /**
+     * 图像中深色像素的外接矩形 [x1, y1, x2, y2]
+     */
+    private static float[] darkBounds(BufferedImage image) {
+        int x1 = Integer.MAX_VALUE, y1 = Integer.MAX_VALUE, x2 = -1, y2 = -1;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if (image.getRaster().getSample(x, y, 0) < 128) {
+                    x1 = Math.min(x1, x);
+                    y1 = Math.min(y1, y);
+                    x2 = Math.max(x2, x + 1);
+                    y2 = Math.max(y2, y + 1);
+                }
+            }
+        }
+        return new float[]{x1, y1, x2, y2};
+    }
+
+    /**
+     * 非有限的坐标与置信度输出为 null，结果仍是合法 JSON
+     */
+    @Test
+    public void nonFiniteJsonTest() throws IOException {
+        PageResult pageResult = PageResult.builder()
+                .pdfWidth(600)
+                .pdfHeight(800)
+                .imageWidth(1200)
+                .imageHeight(1600)
+                .blocks(List.of(new RegionBlock("Text", 0, "退化", new float[]{100, 100, Float.POSITIVE_INFINITY, 150}, Float.NaN)))
+                .build();
+        StringWriter out = new StringWriter();
+        try (JsonDocumentWriter writer = new JsonDocumentWriter(out)) {
+            writer.accept(pageResult);
+        }
+        assertEquals("{\"pages\":[{\"pageIndex\":0,\"width\":600.0,\"height\":800.0,\"rotation\":0,\"blocks\":["
+                + "{\"label\":\"Text\",\"bbox\":[50.0,725.0,null,750.0],\"confidence\":null,\"text\":\"退化\"}]}]}", out.toString());
+    }
+
+    @Test
+    public void emptyJsonTest() throws IOException {
+        StringWriter out = new StringWriter();
+        new JsonDocumentWriter(out).close();
+        assertEquals("{\"pages\":[]}", out.toString());
+    }
+
+    @Test
+    public void markdownTest() throws IOException {
+        StringWriter out = new StringWriter();
+        try (MarkdownDocumentWriter writer = new MarkdownDocumentWriter(out)) {
+            writer.accept(pageResult(0));
+        }
+        assertEquals("<!-- page 1 -->\n\n## 标题\n\n第一行 \"引号\"\n第二行\n\n", out.toString());
+    }
+
+    /**
+     * 标签忽略大小写，与布局排序识别标题的方式一致
+     */
+    @Test
+    public void markdownLabelCaseTest() throws IOException {
+        PageResult pageResult = PageResult.builder()
+                .pdfWidth(600)
+                .pdfHeight(800)
+                .imageWidth(1200)
+                .imageHeight(1600)
+                .blocks(List.of(
+                        new RegionBlock("TITLE", 1, "标题\n", new float[]{100, 100, 500, 150}, 0.9f),
+                        new RegionBlock("equation", 5, "E = mc^2", new float[]{100, 200, 500, 250}, 0.9f),
+                        new RegionBlock(null, 0, "正文", new float[]{100, 300, 500, 350}, 0.9f)))
+                .build();
+        StringWriter out = new StringWriter();
+        try (MarkdownDocumentWriter writer = new MarkdownDocumentWriter(out)) {
+            writer.accept(pageResult);
+        }
+        assertEquals("<!-- page 1 -->\n\n## 标题\n\n$$\nE = mc^2\n$$\n\n正文\n\n", out.toString());
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.xu.layout;
+
+import com.xu.layout.core.LocalFileFigureResolver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @author xuzc
+ */
+public class FigureResolverTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void localFileResolveAsyncTest() throws Exception {
+        Path directory = temporaryFolder.newFolder().toPath().resolve("figures");
+        LocalFileFigureResolver resolver = new LocalFileFigureResolver(directory);
+        byte[] imageData = {1, 2, 3, 4};
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            String url = resolver.resolveAsync(new ByteArrayInputStream(imageData), "a_figure.png", imageData.length, executor).get();
+            assertArrayEquals(imageData, Files.readAllBytes(Paths.get(URI.create(url))));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.xu.layout;
+
+import com.xu.layout.core.ImagePreprocessor;
+import com.xu.layout.core.ResizeGeometry;
+import com.xu.layout.utils.ImageUtil;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author xuzc
+ */
+public class ImagePreprocessorTest {
+
+    private static final int INPUT_WIDTH = 320;
+
+    private static final int INPUT_HEIGHT = 256;
+
+    /**
+     * 双线性插值的定点舍入误差上限
+     */
+    private static final float TOLERANCE = 2f / 255f;
+
+    @Test
+    public void renderedPageTest() throws Exception {
+        try (PDDocument document = PDDocument.load(new File("src/test/resources/研报.pdf"))) {
+            BufferedImage page = new PDFRenderer(document).renderImageWithDPI(0, 150);
+            assertEquals(BufferedImage.TYPE_INT_RGB, page.getType());
+            assertMatchesLegacy(page);
+        }
+    }
+
+    @Test
+    public void imageTypesTest() {
+        int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR,
+                BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_USHORT_565_RGB};
+        for (int type : types) {
+            // 缩小与放大
+            assertMatchesLegacy(syntheticImage(type, 1240, 1754));
+            assertMatchesLegacy(syntheticImage(type, 200, 150));
+        }
+    }
+
+    @Test
+    public void subimageTest() {
+        // 子图像的光栅带有平移量
+        BufferedImage image = syntheticImage(BufferedImage.TYPE_3BYTE_BGR, 900, 700);
+        assertMatchesLegacy(image.getSubimage(101, 57, 640, 480));
+        image = syntheticImage(BufferedImage.TYPE_INT_RGB, 900, 700);
+        assertMatchesLegacy(image.getSubimage(33, 71, 500, 600));
+    }
+
+    private static void assertMatchesLegacy(BufferedImage image) {
+        ImagePreprocessor preprocessor = new ImagePreprocessor(INPUT_WIDTH, INPUT_HEIGHT);
+        ResizeGeometry geometry = ResizeGeometry.stretch(image.getWidth(), image.getHeight(), INPUT_WIDTH, INPUT_HEIGHT);
+        FloatBuffer buffer = preprocessor.acquireBuffer(1);
+        preprocessor.preprocess(image, geometry, buffer, 0);
+        float[] expected = legacyPreprocess(image);
+        assertEquals(expected.length, buffer.limit());
+        double sumError = 0;
+        for (int i = 0; i < expected.length; i++) {
+            float error = Math.abs(expected[i] - buffer.get(i));
+            assertTrue("type " + image.getType() + " index " + i + " error " + error * 255, error <= TOLERANCE);
+            sumError += error;
+        }
+        assertTrue(sumError / expected.length < 0.5f / 255f);
+    }
+
+    /**
+     * 融合预处理之前的实现：转为 TYPE_3BYTE_BGR，经 Java2D 双线性缩放后归一化，再由 HWC 转为 CHW
+     */
+    private static float[] legacyPreprocess(BufferedImage img) {
+        BufferedImage rgbImage = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        Graphics g = rgbImage.getGraphics();
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+
+        BufferedImage resizedImage = new BufferedImage(INPUT_WIDTH, INPUT_HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g2d = resizedImage.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(rgbImage, 0, 0, INPUT_WIDTH, INPUT_HEIGHT, null);
+        g2d.dispose();
+
+        byte[] pixelData = ((DataBufferByte) resizedImage.getRaster().getDataBuffer()).getData();
+        float[] whc = new float[pixelData.length];
+        for (int i = 0; i < pixelData.length; i++) {
+            whc[i] = (pixelData[i] & 0xFF) / 255.0f;
+        }
+        return ImageUtil.whc2cwh(whc);
+    }
+
+    /**
+     * 渐变背景上的色块、文字和线条，各通道取值不同以区分通道顺序
+     */
+    private static BufferedImage syntheticImage(int type, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, new Color(250, 120, 10), width, height, new Color(20, 200, 240)));
+            graphics.fillRect(0, 0, width, height);
+            graphics.setColor(new Color(200, 30, 90));
+            graphics.fillRect(width / 8, height / 6, width / 3, height / 4);
+            graphics.setColor(new Color(10, 160, 60));
+            graphics.fillOval(width / 2, height / 2, width / 3, height / 3);
+            graphics.setColor(Color.BLACK);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, Math.max(12, height / 20)));
+            graphics.drawString("Layout 版面", width / 10, height * 4 / 5);
+            graphics.drawLine(0, height / 3, width, height / 3 + 7);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+}
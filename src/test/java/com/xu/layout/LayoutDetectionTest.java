@@ -1,13 +1,44 @@
 package com.xu.layout;
 
 import cn.hutool.core.io.resource.ResourceUtil;
+import com.xu.layout.cache.LruPageCache;
+import com.xu.layout.cache.PageCache;
+import com.xu.layout.core.DebugDrawPolicy;
+import com.xu.layout.core.ExtractorOptions;
+import com.xu.layout.core.FigureEncoding;
+import com.xu.layout.core.FigureResolver;
 import com.xu.layout.core.LayoutExtractor;
+import com.xu.layout.entity.LayoutNode;
+import com.xu.layout.entity.PageMode;
+import com.xu.layout.entity.PageResult;
+import com.xu.layout.metrics.PipelineListener;
+import com.xu.layout.metrics.PipelineStage;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.rendering.PDFRenderer;
 import org.junit.Test;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author xuzc
@@ -22,11 +53,202 @@ public class LayoutDetectionTest {
         // 研报.pdf
         // 三季度报.pdf
         String savePath = Paths.get("").toAbsolutePath() + "/img";
-        LayoutExtractor pdfLayoutDetection = new LayoutExtractor(savePath);
-        try (InputStream inputStream = ResourceUtil.getStream("研报.pdf")) {
+        try (LayoutExtractor pdfLayoutDetection = new LayoutExtractor(savePath);
+             InputStream inputStream = ResourceUtil.getStream("研报.pdf")) {
             String text = pdfLayoutDetection.detectionPdf(inputStream);
             log.info("text: {}", text);
         }
     }
 
+    /**
+     * 流水线处理按页码顺序回调，结果与串行处理一致
+     */
+    @Test
+    public void detectStreamTest() throws IOException {
+        List<PageResult> pipelined = detectPages(2);
+        List<PageResult> serial = detectPages(1);
+        assertEquals(serial.size(), pipelined.size());
+        assertTrue(!serial.isEmpty());
+        for (int i = 0; i < serial.size(); i++) {
+            assertEquals(i, pipelined.get(i).getPageIndex());
+            assertEquals(i, serial.get(i).getPageIndex());
+            assertEquals(serial.get(i).getBlocks(), pipelined.get(i).getBlocks());
+            assertEquals(serial.get(i).getContent(), pipelined.get(i).getContent());
+        }
+    }
+
+    private static List<PageResult> detectPages(int parallelism) throws IOException {
+        String savePath = Paths.get("").toAbsolutePath() + "/img";
+        // Figure 地址固定，两次处理的结果可直接比较
+        ExtractorOptions options = ExtractorOptions.builder()
+                .parallelism(parallelism)
+                .figureResolver((imageInputStream, fileName, byteSize) -> "figure")
+                .debugDrawPolicy(DebugDrawPolicy.none())
+                .build();
+        List<PageResult> pageResults = new ArrayList<>();
+        try (LayoutExtractor pdfLayoutDetection = new LayoutExtractor(savePath, "yolov8n_layout_general6.onnx", "labels.names", options);
+             InputStream inputStream = ResourceUtil.getStream("Attention Is All You Need.pdf")) {
+            pdfLayoutDetection.detectionPdf(inputStream, pageResult -> {
+                log.info("page: {}, blocks: {}, 耗时: {}ms", pageResult.getPageIndex(), pageResult.getBlocks().size(), pageResult.getTotalMillis());
+                pageResults.add(pageResult);
+            });
+        }
+        return pageResults;
+    }
+
+    @Test
+    public void detectFileTest() throws Exception {
+        String savePath = Paths.get("").toAbsolutePath() + "/img";
+        // 只处理前两页，PDF 超过 16MB 的部分使用临时文件
+        ExtractorOptions options = ExtractorOptions.builder()
+                .firstPages(2)
+                .memoryUsageSetting(MemoryUsageSetting.setupMixed(16 * 1024 * 1024))
+                .build();
+        try (LayoutExtractor pdfLayoutDetection = new LayoutExtractor(savePath, "yolov8n_layout_general6.onnx", "labels.names", options)) {
+            String text = pdfLayoutDetection.detectionPdf(Paths.get(ResourceUtil.getResource("石油报.pdf").toURI()));
+            log.info("text: {}", text);
+        }
+    }
+
+    /**
+     * 开启文本层快速路径时，原生文本页以 TEXT_LAYER 方式渲染，只有图像没有文本层的页面回退为 FULL
+     */
+    @Test
+    public void textLayerFastPathTest() throws IOException {
+        byte[] bornDigital;
+        try (InputStream inputStream = ResourceUtil.getStream("研报.pdf")) {
+            bornDigital = inputStream.readAllBytes();
+        }
+        PageResult textPage = detectFirstPage(bornDigital);
+        assertEquals(PageMode.TEXT_LAYER, textPage.getPageMode());
+        assertTrue(textPage.getRenderDpi() >= 36 && textPage.getRenderDpi() <= 150);
+
+        PageResult imagePage = detectFirstPage(imageOnlyPdf(bornDigital));
+        assertEquals(PageMode.FULL, imagePage.getPageMode());
+    }
+
+    private static PageResult detectFirstPage(byte[] pdf) throws IOException {
+        String savePath = Paths.get("").toAbsolutePath() + "/img";
+        ExtractorOptions options = ExtractorOptions.builder()
+                .firstPages(1)
+                .textLayerFastPath(true)
+                .debugDrawPolicy(DebugDrawPolicy.none())
+                .build();
+        List<PageResult> pageResults = new ArrayList<>();
+        try (LayoutExtractor pdfLayoutDetection = new LayoutExtractor(savePath, "yolov8n_layout_general6.onnx", "labels.names", options)) {
+            pdfLayoutDetection.detectionPdf(new ByteArrayInputStream(pdf), pageResults::add);
+        }
+        assertEquals(1, pageResults.size());
+        return pageResults.get(0);
+    }
+
+    /**
+     * 把首页渲染为图像后单独放入新文档，模拟没有文本层的扫描页
+     */
+    private static byte[] imageOnlyPdf(byte[] pdf) throws IOException {
+        try (PDDocument source = PDDocument.load(pdf); PDDocument target = new PDDocument()) {
+            PDRectangle mediaBox = source.getPage(0).getMediaBox();
+            BufferedImage image = new PDFRenderer(source).renderImageWithDPI(0, 100);
+            PDPage page = new PDPage(new PDRectangle(mediaBox.getWidth(), mediaBox.getHeight()));
+            target.addPage(page);
+            try (PDPageContentStream stream = new PDPageContentStream(target, page)) {
+                stream.drawImage(LosslessFactory.createFromImage(target, image), 0, 0, mediaBox.getWidth(), mediaBox.getHeight());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            target.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 缓存的区域块包含 Figure 地址，Figure 编码或解析器不同时不复用页面缓存；
+     * 命中缓存时布局树与首次检测时相同
+     */
+    @Test
+    public void pageCacheFigureFingerprintTest() throws IOException {
+        PageCache pageCache = new LruPageCache(64 * 1024 * 1024);
+        FigureResolver resolver = (imageInputStream, fileName, byteSize) -> "figure";
+        PageResult detected = detectCached(pageCache, FigureEncoding.png(), resolver);
+        assertFalse(detected.isCached());
+        PageResult cached = detectCached(pageCache, FigureEncoding.png(), resolver);
+        assertTrue(cached.isCached());
+        assertEquals(detected.getBlocks(), cached.getLayoutTree().preorderTraverse());
+        assertEquals(treeShape(detected.getLayoutTree()), treeShape(cached.getLayoutTree()));
+        assertFalse(detectCached(pageCache, FigureEncoding.jpeg(0.8f), resolver).isCached());
+        assertFalse(detectCached(pageCache, FigureEncoding.png(), (imageInputStream, fileName, byteSize) -> "other").isCached());
+    }
+
+    private static String treeShape(LayoutNode node) {
+        StringBuilder shape = new StringBuilder(node.getType().name());
+        if (!node.isLeaf()) {
+            shape.append(node.getChildren().stream().map(LayoutDetectionTest::treeShape).collect(Collectors.joining(",", "(", ")")));
+        }
+        return shape.toString();
+    }
+
+    private static PageResult detectCached(PageCache pageCache, FigureEncoding figureEncoding, FigureResolver figureResolver) throws IOException {
+        String savePath = Paths.get("").toAbsolutePath() + "/img";
+        ExtractorOptions options = ExtractorOptions.builder()
+                .firstPages(1)
+                .pageCache(pageCache)
+                .figureEncoding(figureEncoding)
+                .figureResolver(figureResolver)
+                .debugDrawPolicy(DebugDrawPolicy.none())
+                .build();
+        List<PageResult> pageResults = new ArrayList<>();
+        try (LayoutExtractor pdfLayoutDetection = new LayoutExtractor(savePath, "yolov8n_layout_general6.onnx", "labels.names", options);
+             InputStream inputStream = ResourceUtil.getStream("研报.pdf")) {
+            pdfLayoutDetection.detectionPdf(inputStream, pageResults::add);
+        }
+        assertEquals(1, pageResults.size());
+        return pageResults.get(0);
+    }
+
+    /**
+     * 回调抛出异常时，流水线中仍在途的渲染、文本提取任务在 detectionPdf 返回、文档关闭之前结束，之后不再有访问文档的任务
+     */
+    @Test
+    public void consumerFailureStopsDocumentTasksTest() throws Exception {
+        Set<PipelineStage> documentStages = Set.of(PipelineStage.RENDER, PipelineStage.TEXT_EXTRACTION, PipelineStage.FIGURE_RENDER);
+        AtomicBoolean returned = new AtomicBoolean();
+        AtomicInteger lateStages = new AtomicInteger();
+        PipelineListener listener = new PipelineListener() {
+            @Override
+            public void stageCompleted(int pageIndex, PipelineStage stage, long nanos) {
+                if (!documentStages.contains(stage)) {
+                    return;
+                }
+                // 回调在访问文档的任务内执行，拉长任务使回调抛出异常时必有任务在途
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (returned.get()) {
+                    lateStages.incrementAndGet();
+                }
+            }
+        };
+        String savePath = Paths.get("").toAbsolutePath() + "/img";
+        ExtractorOptions options = ExtractorOptions.builder()
+                .parallelism(2)
+                .pipelineListener(listener)
+                .figureResolver((imageInputStream, fileName, byteSize) -> "figure")
+                .debugDrawPolicy(DebugDrawPolicy.none())
+                .build();
+        try (LayoutExtractor pdfLayoutDetection = new LayoutExtractor(savePath, "yolov8n_layout_general6.onnx", "labels.names", options);
+             InputStream inputStream = ResourceUtil.getStream("Attention Is All You Need.pdf")) {
+            try {
+                pdfLayoutDetection.detectionPdf(inputStream, pageResult -> {
+                    throw new IllegalStateException("consumer failed");
+                });
+            } catch (IllegalStateException e) {
+                returned.set(true);
+            }
+            assertTrue(returned.get());
+            Thread.sleep(1000);
+        }
+        assertEquals(0, lateStages.get());
+    }
+
 }
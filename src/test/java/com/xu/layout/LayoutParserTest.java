@@ -0,0 +1,354 @@
+package com.xu.layout;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.xu.layout.core.ColumnDetector;
+import com.xu.layout.core.LayoutParser;
+import com.xu.layout.core.LayoutSorter;
+import com.xu.layout.core.OverlapBlockRemover;
+import com.xu.layout.core.TitleBlockProcessor;
+import com.xu.layout.entity.LayoutNode;
+import com.xu.layout.entity.RegionBlock;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author xuzc
+ */
+public class LayoutParserTest {
+
+    private static final float THRESHOLD = 3.0f;
+
+    private static final String[] PDFS = {"研报.pdf", "石油报.pdf", "Attention Is All You Need.pdf", "三季度报.pdf"};
+
+    @Test
+    public void removeOverlappingSmallerBlocksTest() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            List<RegionBlock> blocks = randomBlocks(random, 1 + random.nextInt(300), round % 20 == 0);
+            List<RegionBlock> actual = OverlapBlockRemover.removeOverlappingSmallerBlocks(new ArrayList<>(blocks));
+            // removeOverlappingSmallerBlocks 已将 blocks 按面积排序，再按定义逐一比较
+            List<RegionBlock> sorted = new ArrayList<>(blocks);
+            sorted.sort((a, b) -> Double.compare(area(b.getBbox()), area(a.getBbox())));
+            List<RegionBlock> expected = new ArrayList<>();
+            for (RegionBlock current : sorted) {
+                if (expected.stream().noneMatch(larger -> isContainedIn(current.getBbox(), larger.getBbox()))) {
+                    expected.add(current);
+                }
+            }
+            assertSameBlocks(expected, actual);
+        }
+    }
+
+    @Test
+    public void groupUnderTitlesTest() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            List<RegionBlock> blocks = LayoutSorter.sortByYThenX(randomBlocks(random, 1 + random.nextInt(300), round % 20 == 0));
+            List<RegionBlock> titles = new ArrayList<>();
+            List<RegionBlock> texts = new ArrayList<>();
+            for (RegionBlock block : blocks) {
+                ("Title".equals(block.getLabel()) ? titles : texts).add(block);
+            }
+            List<List<RegionBlock>> groups = TitleBlockProcessor.groupUnderTitles(titles, texts);
+            assertEquals(titles.size(), groups.size());
+            for (int i = 0; i < titles.size(); i++) {
+                List<RegionBlock> expected = new ArrayList<>();
+                for (RegionBlock text : texts) {
+                    if (TitleBlockProcessor.isUnderTitle(titles.get(i), text, titles.subList(i + 1, titles.size()))) {
+                        expected.add(text);
+                    }
+                }
+                assertSameBlocks(expected, groups.get(i));
+            }
+        }
+    }
+
+    /**
+     * 与改写前的实现逐块比较阅读顺序，覆盖规整排版与按标题分段两条路径；区域块各不相等，不涉及重复块的修正
+     */
+    @Test
+    public void processLayoutMatchesLegacyTest() throws IOException {
+        Random random = new Random(13);
+        for (int round = 0; round < 300; round++) {
+            List<RegionBlock> blocks = randomBlocks(random, 1 + random.nextInt(300), round % 20 == 0);
+            assertSameBlocks(LegacyLayoutParser.processLayout(new ArrayList<>(blocks)), LayoutParser.processLayout(new ArrayList<>(blocks)));
+        }
+        // 以 PDF 每页的文本行作为区域块，行高明显大于中位数的行视为标题
+        for (String pdf : PDFS) {
+            try (InputStream inputStream = ResourceUtil.getStream(pdf); PDDocument document = PDDocument.load(inputStream)) {
+                for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                    ColumnDetectorTest.LineCollector collector = new ColumnDetectorTest.LineCollector();
+                    collector.setStartPage(page);
+                    collector.setEndPage(page);
+                    collector.writeText(document, new StringWriter());
+                    List<RegionBlock> blocks = withTitles(collector.blocks);
+                    assertSameBlocks(LegacyLayoutParser.processLayout(new ArrayList<>(blocks)), LayoutParser.processLayout(new ArrayList<>(blocks)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void processLayoutKeepsDuplicateBlocksTest() {
+        // 两个值相等但不是同一对象的区域块：x2 为 NaN 时不会因相互包含而被移除，
+        // 行内误差使两者在排序后分处第一个标题的两侧，只有前一个属于标题前的区域块
+        float[] duplicateBbox = {700, 100, Float.NaN, 120};
+        List<RegionBlock> blocks = new ArrayList<>(List.of(
+                block("Title", 500, 104), block("Text", 400, 100), block("Title", 1000, 108), block("Text", 200, 108),
+                block("Title", 700, 112),
+                new RegionBlock("Text", 0, "duplicate", duplicateBbox.clone(), 0.9f),
+                new RegionBlock("Text", 0, "duplicate", duplicateBbox.clone(), 0.9f),
+                block("Title", 900, 108)));
+        assertTrue(ColumnDetector.detectColumns(new ArrayList<>(blocks)).size() > 5);
+
+        List<RegionBlock> actual = LayoutParser.processLayout(new ArrayList<>(blocks));
+        // 每个区域块都恰好输出一次
+        Set<RegionBlock> output = Collections.newSetFromMap(new IdentityHashMap<>());
+        output.addAll(actual);
+        assertEquals(blocks.size(), actual.size());
+        assertEquals(blocks.size(), output.size());
+    }
+
+    @Test
+    public void buildLayoutTreeTest() {
+        Random random = new Random(17);
+        for (int round = 0; round < 100; round++) {
+            List<RegionBlock> blocks = randomBlocks(random, 1 + random.nextInt(300), false);
+            LayoutNode page = LayoutParser.buildLayoutTree(new ArrayList<>(blocks));
+            assertEquals(LayoutNode.Type.PAGE, page.getType());
+            for (LayoutNode child : page.getChildren()) {
+                if (child.getType() == LayoutNode.Type.SECTION) {
+                    assertTrue(child.getLabelContent() == null || "Title".equals(child.getLabelContent().getLabel()));
+                    child.getChildren().forEach(LayoutParserTest::assertColumn);
+                } else if (child.getType() == LayoutNode.Type.COLUMN) {
+                    assertColumn(child);
+                } else {
+                    assertEquals(LayoutNode.Type.BLOCK, child.getType());
+                    assertTrue(child.isLeaf());
+                }
+            }
+            // 先序遍历即改写前实现的阅读顺序
+            assertSameBlocks(LegacyLayoutParser.processLayout(new ArrayList<>(blocks)), page.preorderTraverse());
+        }
+    }
+
+    @Test
+    public void preorderTraverseDeepTreeTest() {
+        LayoutNode root = new LayoutNode(LayoutNode.Type.PAGE, null);
+        List<RegionBlock> expected = new ArrayList<>();
+        LayoutNode node = root;
+        for (int i = 0; i < 100_000; i++) {
+            RegionBlock block = block("Text", i, 0);
+            expected.add(block);
+            LayoutNode child = new LayoutNode(block);
+            node.addChild(child);
+            node = child;
+        }
+        assertSameBlocks(expected, root.preorderTraverse());
+    }
+
+    private static void assertColumn(LayoutNode column) {
+        assertEquals(LayoutNode.Type.COLUMN, column.getType());
+        assertTrue(!column.isLeaf());
+        for (LayoutNode block : column.getChildren()) {
+            assertEquals(LayoutNode.Type.BLOCK, block.getType());
+            assertTrue(block.isLeaf());
+        }
+    }
+
+    private static RegionBlock block(String label, float x1, float y1) {
+        return new RegionBlock(label, "Title".equals(label) ? 1 : 0, label + "-" + x1, new float[]{x1, y1, x1 + 50, y1 + 20}, 0.9f);
+    }
+
+    /**
+     * 成簇分布、部分嵌套的区域块，约 10% 为标题
+     */
+    private static List<RegionBlock> randomBlocks(Random random, int count, boolean malformed) {
+        List<RegionBlock> blocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float x1, y1, width, height;
+            if (!blocks.isEmpty() && random.nextInt(4) == 0) {
+                // 在已有区域块内部或边缘附近生成
+                float[] outer = blocks.get(random.nextInt(blocks.size())).getBbox();
+                x1 = outer[0] + random.nextFloat() * (outer[2] - outer[0]) - 2;
+                y1 = outer[1] + random.nextFloat() * (outer[3] - outer[1]) - 2;
+                width = random.nextFloat() * (outer[2] - x1 + 4);
+                height = random.nextFloat() * (outer[3] - y1 + 4);
+            } else {
+                x1 = random.nextFloat() * 1200;
+                y1 = random.nextFloat() * 1700;
+                width = 5 + random.nextFloat() * (random.nextInt(5) == 0 ? 1000 : 300);
+                height = 5 + random.nextFloat() * (random.nextInt(5) == 0 ? 600 : 80);
+            }
+            float[] bbox = {x1, y1, x1 + width, y1 + height};
+            if (malformed && i % 17 == 0) {
+                bbox = new float[]{x1 + width, y1, x1, y1 + height};
+            }
+            boolean title = random.nextInt(10) == 0;
+            blocks.add(new RegionBlock(title ? "Title" : "Text", title ? 1 : 0, "block-" + i, bbox, 0.9f));
+        }
+        return blocks;
+    }
+
+    private static List<RegionBlock> withTitles(List<RegionBlock> lines) {
+        float[] heights = new float[lines.size()];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = lines.get(i).getBbox()[3] - lines.get(i).getBbox()[1];
+        }
+        Arrays.sort(heights);
+        float median = heights.length == 0 ? 0 : heights[heights.length / 2];
+        return lines.stream().map(line -> {
+            float[] bbox = line.getBbox();
+            boolean title = bbox[3] - bbox[1] > median * 1.3f;
+            return new RegionBlock(title ? "Title" : "Text", title ? 1 : 0, line.getContent(), bbox, 0.9f);
+        }).collect(Collectors.toList());
+    }
+
+    private static void assertSameBlocks(List<RegionBlock> expected, List<RegionBlock> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static double area(float[] bbox) {
+        return (bbox[2] - bbox[0]) * (bbox[3] - bbox[1]);
+    }
+
+    private static boolean isContainedIn(float[] smallBbox, float[] largeBbox) {
+        return smallBbox[0] >= largeBbox[0] - THRESHOLD && smallBbox[1] >= largeBbox[1] - THRESHOLD &&
+                smallBbox[2] <= largeBbox[2] + THRESHOLD && smallBbox[3] <= largeBbox[3] + THRESHOLD;
+    }
+
+    /**
+     * 改写前的 processLayout 及其依赖的区域块移除、排序与按列遍历，作为对照；列检测使用 ColumnDetectorTest 中的原实现，去掉了日志
+     */
+    private static final class LegacyLayoutParser {
+
+        private static final String TITLE = "Title";
+
+        static List<RegionBlock> processLayout(List<RegionBlock> contentList) {
+            // 移除重叠的小区域块
+            List<RegionBlock> filteredList = removeOverlappingSmallerBlocks(contentList);
+
+            // 按 y 坐标排序，处理标题
+            List<RegionBlock> sortedList = sortByYThenX(filteredList);
+
+            // 检测是否为规整的排版布局
+            Map<Integer, List<RegionBlock>> columnRegionBlockMap = ColumnDetectorTest.LegacyColumnDetector.detectColumns(filteredList);
+            int columns = columnRegionBlockMap.size();
+            if (columns <= 5) {
+                // 如果是规整的一列、两列或三列排版，直接按列构建树
+                return processAndTraverse(columnRegionBlockMap);
+            }
+            // 如果不是规整排版，则继续处理标题块的逻辑
+            // 用于存储已处理的区域块，以避免重复处理
+            Set<RegionBlock> processedBlocks = new HashSet<>();
+            // 用于存储标题前的区域块
+            List<RegionBlock> firstProcessList = new ArrayList<>();
+
+            // 处理标题前的区域块
+            for (RegionBlock content : sortedList) {
+                if (!TITLE.equalsIgnoreCase(content.getLabel())) {
+                    firstProcessList.add(content);
+                    processedBlocks.add(content);
+                } else {
+                    break;
+                }
+            }
+
+            // 处理并返回结果
+            Map<Integer, List<RegionBlock>> firstProcessLBlockMap = ColumnDetectorTest.LegacyColumnDetector.detectColumns(firstProcessList);
+            List<RegionBlock> preTitleBlocks = processAndTraverse(firstProcessLBlockMap);
+            List<RegionBlock> result = new ArrayList<>(preTitleBlocks);
+
+            // 提取所有标题
+            List<RegionBlock> titles = sortedList.stream().filter(lc -> TITLE.equalsIgnoreCase(lc.getLabel())).collect(Collectors.toList());
+            processedBlocks.addAll(titles);
+
+            // 遍历处理每个标题下的内容
+            for (int i = 0; i < titles.size(); i++) {
+                RegionBlock title = titles.get(i);
+                int current = i;
+                // 筛选属于当前标题下的区域块
+                List<RegionBlock> textsUnderTitle = sortedList.stream().filter(lc -> !TITLE.equalsIgnoreCase(lc.getLabel())).filter(lc -> TitleBlockProcessor.isUnderTitle(title, lc, titles.subList(current + 1, titles.size()))).collect(Collectors.toList());
+                processedBlocks.addAll(textsUnderTitle);
+                // 处理当前标题下的区域块并添加到结果中
+                Map<Integer, List<RegionBlock>> textsUnderTitleBlockMap = ColumnDetectorTest.LegacyColumnDetector.detectColumns(textsUnderTitle);
+                List<RegionBlock> titleBlocks = processAndTraverse(textsUnderTitleBlockMap, title);
+                result.addAll(titleBlocks);
+            }
+
+            // 处理未被处理的区域块
+            List<RegionBlock> unprocessedBlocks = sortedList.stream().filter(lc -> !processedBlocks.contains(lc)).toList();
+
+            // 将未处理的区域块添加到结果中
+            result.addAll(unprocessedBlocks);
+            return result;
+        }
+
+        static List<RegionBlock> removeOverlappingSmallerBlocks(List<RegionBlock> list) {
+            list.sort(Comparator.comparingDouble((RegionBlock lc) -> -area(lc.getBbox())));
+
+            List<RegionBlock> result = new ArrayList<>();
+            for (RegionBlock current : list) {
+                boolean isContained = false;
+                for (RegionBlock largerBlock : result) {
+                    if (isContainedIn(current.getBbox(), largerBlock.getBbox())) {
+                        isContained = true;
+                        break;
+                    }
+                }
+                if (!isContained) {
+                    result.add(current);
+                }
+            }
+            return result;
+        }
+
+        static List<RegionBlock> sortByYThenX(List<RegionBlock> contentList) {
+            contentList.sort((lc1, lc2) -> {
+                double y1 = lc1.getBbox()[1];
+                double y2 = lc2.getBbox()[1];
+                // 如果y坐标在误差范围内，视为同一行
+                if (Math.abs(y1 - y2) <= 5.0f) {
+                    // 同一行时，按x坐标从左到右排序
+                    return Double.compare(lc1.getBbox()[0], lc2.getBbox()[0]);
+                }
+                return Double.compare(y1, y2);
+            });
+            // 不在误差范围内，则按y坐标从上到下排序
+            return contentList;
+        }
+
+        static List<RegionBlock> processAndTraverse(Map<Integer, List<RegionBlock>> columnMap) {
+            return processAndTraverse(columnMap, null);
+        }
+
+        static List<RegionBlock> processAndTraverse(Map<Integer, List<RegionBlock>> columnMap, RegionBlock parent) {
+            int columns = columnMap.size();
+            LayoutNode root = new LayoutNode(parent);
+            for (int col = 0; col < columns; col++) {
+                List<RegionBlock> columnTexts = columnMap.get(col);
+                LayoutNode columnNode = new LayoutNode(null);
+                for (RegionBlock text : columnTexts) {
+                    columnNode.children.add(new LayoutNode(text));
+                }
+                root.children.add(columnNode);
+            }
+            return root.preorderTraverse();
+        }
+
+    }
+
+}
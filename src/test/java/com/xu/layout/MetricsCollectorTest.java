@@ -0,0 +1,55 @@
+package com.xu.layout;
+
+import com.xu.layout.metrics.MetricsCollector;
+import com.xu.layout.metrics.PipelineListener;
+import com.xu.layout.metrics.PipelineStage;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author xuzc
+ */
+public class MetricsCollectorTest {
+
+    @Test
+    public void collectTest() throws InterruptedException {
+        MetricsCollector collector = new MetricsCollector();
+        MetricsCollector other = new MetricsCollector();
+        PipelineListener listener = PipelineListener.compose(collector, other);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int page = 0; page < 100; page++) {
+            int pageIndex = page;
+            executor.execute(() -> {
+                listener.stageCompleted(pageIndex, PipelineStage.INFERENCE, 1_000_000L * (pageIndex + 1));
+                listener.detectionsCounted(pageIndex, Map.of("Text", 3, "Title", 1));
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        listener.pageCacheHit(100);
+
+        for (MetricsCollector metrics : new MetricsCollector[]{collector, other}) {
+            MetricsCollector.StageStats inference = metrics.getStageStats(PipelineStage.INFERENCE);
+            assertEquals(100, inference.count());
+            assertEquals(5050 * 1_000_000L, inference.totalNanos());
+            assertEquals(100_000_000L, inference.maxNanos());
+            assertEquals(50.5, inference.meanMillis(), 1e-9);
+            assertEquals(0, metrics.getStageStats(PipelineStage.RENDER).count());
+            assertEquals(Map.of("Text", 300L, "Title", 100L), metrics.getLabelCounts());
+            assertEquals(1, metrics.getCacheHits());
+        }
+
+        collector.reset();
+        assertEquals(0, collector.getStageStats(PipelineStage.INFERENCE).count());
+        assertTrue(collector.getLabelCounts().isEmpty());
+        assertEquals(100, other.getStageStats(PipelineStage.INFERENCE).count());
+    }
+
+}
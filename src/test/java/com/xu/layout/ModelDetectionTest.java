@@ -0,0 +1,142 @@
+package com.xu.layout;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.xu.layout.core.Detection;
+import com.xu.layout.core.ModelDetection;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author xuzc
+ */
+@Slf4j
+public class ModelDetectionTest {
+
+    private static final String MODEL_PATH = "yolov8n_layout_general6.onnx";
+
+    private static final String LABEL_PATH = "labels.names";
+
+    @Before
+    public void checkModel() {
+        // 模型文件不随仓库分发，缺失时跳过
+        Assume.assumeNotNull(getClass().getClassLoader().getResource(MODEL_PATH));
+    }
+
+    @Test
+    public void concurrentDetectTest() throws Exception {
+        List<BufferedImage> pages = renderPages("研报.pdf", "石油报.pdf");
+        int threads = 8;
+        int rounds = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (ModelDetection modelDetection = new ModelDetection(MODEL_PATH, LABEL_PATH)) {
+            // 单线程结果作为基准
+            List<List<Detection>> expected = new ArrayList<>();
+            for (BufferedImage page : pages) {
+                expected.add(modelDetection.detectObjects(page));
+            }
+
+            // 多线程共享同一个模型实例，交错检测不同尺寸的页面
+            List<Future<List<Detection>>> futures = new ArrayList<>();
+            for (int round = 0; round < rounds; round++) {
+                for (BufferedImage page : pages) {
+                    futures.add(executor.submit(() -> modelDetection.detectObjects(page)));
+                }
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(expected.get(i % pages.size()), futures.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("concurrent detections verified, pages: {}, tasks: {}", pages.size(), pages.size() * rounds);
+    }
+
+    @Test
+    public void batchDetectTest() throws Exception {
+        List<BufferedImage> pages = renderPages("研报.pdf");
+        try (ModelDetection modelDetection = new ModelDetection(MODEL_PATH, LABEL_PATH)) {
+            List<List<Detection>> batchResults = modelDetection.detectObjects(pages);
+            assertEquals(pages.size(), batchResults.size());
+            for (int i = 0; i < pages.size(); i++) {
+                List<Detection> expected = modelDetection.detectObjects(pages.get(i));
+                List<Detection> actual = batchResults.get(i);
+                assertEquals(expected.size(), actual.size());
+                for (int j = 0; j < expected.size(); j++) {
+                    // 批量推理的浮点累加顺序可能不同，框坐标允许微小误差
+                    assertEquals(expected.get(j).getLabel(), actual.get(j).getLabel());
+                    assertArrayEquals(expected.get(j).getBbox(), actual.get(j).getBbox(), 0.5f);
+                }
+            }
+            log.info("batch supported: {}", modelDetection.supportsBatch());
+        }
+    }
+
+    /**
+     * 长时间运行后进程常驻内存（含 ONNX Runtime 本地内存）应保持平稳
+     */
+    @Test
+    public void nativeMemorySoakTest() throws Exception {
+        Path status = Paths.get("/proc/self/status");
+        Assume.assumeTrue(Files.isReadable(status));
+        BufferedImage page = renderPages("石油报.pdf").get(0);
+        try (ModelDetection modelDetection = new ModelDetection(MODEL_PATH, LABEL_PATH)) {
+            // 预热，使线程缓冲区、会话内存池等达到稳定状态
+            for (int i = 0; i < 50; i++) {
+                modelDetection.detectObjects(page);
+            }
+            long baseline = residentKb(status);
+            for (int i = 0; i < 1000; i++) {
+                modelDetection.detectObjects(page);
+            }
+            long growth = residentKb(status) - baseline;
+            log.info("resident memory growth after soak: {}KB", growth);
+            // 未释放输出时每次推理泄漏约 300KB，1000 次约 300MB
+            assertTrue("resident memory grew by " + growth + "KB", growth < 64 * 1024);
+        }
+    }
+
+    private long residentKb(Path status) throws Exception {
+        System.gc();
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        throw new IllegalStateException("VmRSS not found");
+    }
+
+    private List<BufferedImage> renderPages(String... pdfNames) throws Exception {
+        List<BufferedImage> pages = new ArrayList<>();
+        for (String pdfName : pdfNames) {
+            try (InputStream inputStream = ResourceUtil.getStream(pdfName);
+                 PDDocument document = PDDocument.load(inputStream)) {
+                PDFRenderer pdfRenderer = new PDFRenderer(document);
+                int pageCount = Math.min(document.getNumberOfPages(), 3);
+                for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+                    pages.add(pdfRenderer.renderImageWithDPI(pageIndex, 150));
+                }
+            }
+        }
+        return pages;
+    }
+
+}
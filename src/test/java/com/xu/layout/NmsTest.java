@@ -0,0 +1,151 @@
+package com.xu.layout;
+
+import com.xu.layout.utils.ImageUtil;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author xuzc
+ */
+@SuppressWarnings("deprecation")
+public class NmsTest {
+
+    private static final float IOU_THRESHOLD = 0.5f;
+
+    @Test
+    public void nonMaxSuppressionTest() {
+        Random random = new Random(5);
+        for (int round = 0; round < 500; round++) {
+            int count = random.nextInt(400);
+            float[] boxes = randomBoxes(random, count);
+            float[] scores = randomScores(random, count);
+
+            // 不区分类别
+            int[] actual = ImageUtil.nonMaxSuppression(boxes, scores, null, count, IOU_THRESHOLD);
+            assertArrayEquals(legacyNms(boxes, scores, allIndices(count)), actual);
+
+            // 按类别批量抑制，结果按类别从小到大分组，与逐类别调用 List 实现的结果一致
+            int[] labels = new int[count];
+            int numLabels = 1 + random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                // 跳过部分类别号，覆盖空分组
+                labels[i] = random.nextInt(numLabels) * 2;
+            }
+            actual = ImageUtil.nonMaxSuppression(boxes, scores, labels, count, IOU_THRESHOLD);
+            int[] expected = new int[0];
+            for (int label = 0; label < numLabels * 2; label++) {
+                List<Integer> indices = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    if (labels[i] == label) {
+                        indices.add(i);
+                    }
+                }
+                expected = concat(expected, legacyNms(boxes, scores, indices));
+            }
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void softNonMaxSuppressionTest() {
+        float sigma = 0.5f;
+        float[] boxes = {
+                0, 0, 100, 100,
+                0, 0, 100, 100,
+                50, 0, 150, 100,
+                0, 0, 100, 100,
+                500, 500, 600, 600};
+        float[] scores = {0.9f, 0.8f, 0.7f, 0.6f, 0.5f};
+        int[] labels = {0, 0, 0, 1, 0};
+
+        float[] decayed = scores.clone();
+        int[] keep = ImageUtil.softNonMaxSuppression(boxes, decayed, labels, 5, sigma, 0.05f);
+        // 按选中顺序返回：0.9、0.6、0.56、0.5、0.087
+        assertArrayEquals(new int[]{0, 3, 2, 4, 1}, keep);
+        assertEquals(0.9f, decayed[0], 0f);
+        // 框 2 与框 0 的 IOU 为 1/3，衰减为 0.7 * exp(-(1/9) / sigma)
+        assertEquals(0.7 * Math.exp(-(1 / 9.0) / sigma), decayed[2], 1e-6);
+        // 与框 0 完全重合的框 1 先衰减为 0.8 * exp(-1 / sigma)，框 2 选中后再按 IOU 1/3 衰减一次
+        assertEquals(0.8 * Math.exp(-1 / sigma) * Math.exp(-(1 / 9.0) / sigma), decayed[1], 1e-6);
+        // 其他类别及不重叠的框不衰减
+        assertEquals(0.6f, decayed[3], 0f);
+        assertEquals(0.5f, decayed[4], 0f);
+
+        // 衰减后低于阈值的框被丢弃
+        decayed = scores.clone();
+        keep = ImageUtil.softNonMaxSuppression(boxes, decayed, labels, 5, sigma, 0.3f);
+        assertArrayEquals(new int[]{0, 3, 2, 4}, keep);
+
+        // 不区分类别时框 3 也被框 0 衰减到阈值以下
+        decayed = scores.clone();
+        keep = ImageUtil.softNonMaxSuppression(boxes, decayed, null, 5, sigma, 0.3f);
+        assertArrayEquals(new int[]{0, 2, 4}, keep);
+    }
+
+    /**
+     * 基于 List 的实现，返回保留框在 boxes 中的下标
+     */
+    private static int[] legacyNms(float[] boxes, float[] scores, List<Integer> indices) {
+        Map<float[], Integer> indexOf = new IdentityHashMap<>();
+        List<float[]> bboxes = new ArrayList<>();
+        for (int i : indices) {
+            float[] bbox = {boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3], scores[i]};
+            indexOf.put(bbox, i);
+            bboxes.add(bbox);
+        }
+        return ImageUtil.nonMaxSuppression(bboxes, IOU_THRESHOLD).stream().mapToInt(indexOf::get).toArray();
+    }
+
+    /**
+     * 成簇分布的检测框，部分完全重合
+     */
+    private static float[] randomBoxes(Random random, int count) {
+        float[] boxes = new float[count * 4];
+        for (int i = 0; i < count; i++) {
+            int p = i * 4;
+            if (i > 0 && random.nextInt(10) == 0) {
+                System.arraycopy(boxes, random.nextInt(i) * 4, boxes, p, 4);
+                continue;
+            }
+            float cx = random.nextInt(8) * 80 + random.nextFloat() * 30;
+            float cy = random.nextInt(8) * 80 + random.nextFloat() * 30;
+            float w = 10 + random.nextFloat() * 90;
+            float h = 10 + random.nextFloat() * 90;
+            boxes[p] = cx - w / 2;
+            boxes[p + 1] = cy - h / 2;
+            boxes[p + 2] = cx + w / 2;
+            boxes[p + 3] = cy + h / 2;
+        }
+        return boxes;
+    }
+
+    /**
+     * 取值只有少数几档，制造大量置信度相同的框
+     */
+    private static float[] randomScores(Random random, int count) {
+        float[] scores = new float[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = random.nextBoolean() ? random.nextInt(5) / 5f + 0.1f : random.nextFloat();
+        }
+        return scores;
+    }
+
+    private static List<Integer> allIndices(int count) {
+        List<Integer> indices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            indices.add(i);
+        }
+        return indices;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.xu.layout;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.xu.layout.cache.CachedPage;
+import com.xu.layout.cache.LruPageCache;
+import com.xu.layout.cache.MappedSegmentPageCache;
+import com.xu.layout.cache.PageKeys;
+import com.xu.layout.entity.LayoutNode;
+import com.xu.layout.entity.PageMode;
+import com.xu.layout.entity.RegionBlock;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author xuzc
+ */
+public class PageCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static CachedPage cachedPage(String text) {
+        return new CachedPage(PageMode.FULL, 150f, 1240, 1754, List.of(
+                new RegionBlock("Title", 1, text, new float[]{10, 20, 300, 60}, 0.9f),
+                new RegionBlock("Text", 0, text + "\n正文", new float[]{10, 80, 1200, 400}, 0.8f)));
+    }
+
+    @Test
+    public void lruEvictionTest() {
+        LruPageCache probe = new LruPageCache(Long.MAX_VALUE);
+        probe.put("a", cachedPage("a"));
+        // 容量只够两页
+        long maxBytes = probe.totalBytes() * 5 / 2;
+        LruPageCache cache = new LruPageCache(maxBytes);
+        cache.put("a", cachedPage("a"));
+        cache.put("b", cachedPage("b"));
+        // 访问 a 后 b 成为最久未使用
+        assertNotNull(cache.get("a"));
+        cache.put("c", cachedPage("c"));
+        assertNull(cache.get("b"));
+        assertEquals("a", cache.get("a").getBlocks().get(0).getContent());
+        assertEquals("c\n正文", cache.get("c").getBlocks().get(1).getContent());
+        assertTrue(cache.totalBytes() <= maxBytes);
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * 布局树随区域块一起编码，取出后结构不变，节点引用取出的同一批区域块
+     */
+    @Test
+    public void layoutTreeTest() {
+        List<RegionBlock> blocks = List.of(
+                new RegionBlock("Text", 0, "页眉", new float[]{10, 0, 300, 10}, 0.7f),
+                new RegionBlock("Title", 1, "标题", new float[]{10, 20, 300, 60}, 0.9f),
+                new RegionBlock("Text", 0, "左栏", new float[]{10, 80, 600, 400}, 0.8f),
+                new RegionBlock("Text", 0, "右栏", new float[]{620, 80, 1200, 400}, 0.8f));
+        LayoutNode page = new LayoutNode(LayoutNode.Type.PAGE, null);
+        page.addChild(new LayoutNode(blocks.get(0)));
+        LayoutNode section = new LayoutNode(LayoutNode.Type.SECTION, blocks.get(1));
+        for (RegionBlock block : blocks.subList(2, 4)) {
+            LayoutNode column = new LayoutNode(LayoutNode.Type.COLUMN, null);
+            column.addChild(new LayoutNode(block));
+            section.addChild(column);
+        }
+        page.addChild(section);
+        page.addChild(new LayoutNode(LayoutNode.Type.COLUMN, null));
+
+        LruPageCache cache = new LruPageCache(Long.MAX_VALUE);
+        cache.put("page", new CachedPage(PageMode.FULL, 150f, 1240, 1754, blocks, page));
+        CachedPage cached = cache.get("page");
+        LayoutNode tree = cached.getLayoutTree();
+        assertEquals(LayoutNode.Type.PAGE, tree.getType());
+        assertEquals(3, tree.getChildren().size());
+        assertEquals(LayoutNode.Type.BLOCK, tree.getChildren().get(0).getType());
+        LayoutNode cachedSection = tree.getChildren().get(1);
+        assertEquals(LayoutNode.Type.SECTION, cachedSection.getType());
+        assertEquals(2, cachedSection.getChildren().size());
+        assertEquals(LayoutNode.Type.COLUMN, cachedSection.getChildren().get(1).getType());
+        assertTrue(tree.getChildren().get(2).isLeaf());
+        List<RegionBlock> traversed = tree.preorderTraverse();
+        assertEquals(blocks, traversed);
+        for (int i = 0; i < traversed.size(); i++) {
+            assertSame(cached.getBlocks().get(i), traversed.get(i));
+        }
+
+        // 未提供布局树时，区域块按顺序挂在页面下
+        assertEquals(cachedPage("a").getBlocks(), cachedPage("a").getLayoutTree().preorderTraverse());
+    }
+
+    @Test
+    public void mappedSegmentReopenTest() throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        try (MappedSegmentPageCache cache = new MappedSegmentPageCache(directory, 1024)) {
+            for (int i = 0; i < 20; i++) {
+                cache.put("page-" + i, cachedPage("标题" + i));
+            }
+            cache.put("page-3", cachedPage("更新"));
+            assertEquals("标题7", cache.get("page-7").getBlocks().get(0).getContent());
+            assertEquals("标题19", cache.get("page-19").getBlocks().get(0).getContent());
+        }
+        // 模拟写入中断：在最后一个分段末尾追加不完整的记录
+        Path last;
+        try (Stream<Path> files = Files.list(directory)) {
+            last = files.sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x4C, 0x34, 0x50, 0x43, 0, 0}));
+        }
+        try (MappedSegmentPageCache cache = new MappedSegmentPageCache(directory, 1024)) {
+            assertEquals(20, cache.size());
+            assertEquals("更新", cache.get("page-3").getBlocks().get(0).getContent());
+            assertEquals("标题0", cache.get("page-0").getBlocks().get(0).getContent());
+            CachedPage page = cache.get("page-12");
+            assertEquals(PageMode.FULL, page.getPageMode());
+            assertArrayEquals(new float[]{10, 80, 1200, 400}, page.getBlocks().get(1).getBbox(), 0f);
+            cache.put("page-20", cachedPage("标题20"));
+            assertEquals("标题20", cache.get("page-20").getBlocks().get(0).getContent());
+        }
+    }
+
+    @Test
+    public void pageKeyTest() throws IOException {
+        String first;
+        String second;
+        try (InputStream inputStream = ResourceUtil.getStream("三季度报.pdf");
+             PDDocument document = PDDocument.load(inputStream)) {
+            first = PageKeys.pageKey(document.getPage(0), "model");
+            second = PageKeys.pageKey(document.getPage(1), "model");
+            assertNotEquals(first, second);
+            assertNotEquals(first, PageKeys.pageKey(document.getPage(0), "model-v2"));
+        }
+        try (InputStream inputStream = ResourceUtil.getStream("三季度报.pdf");
+             PDDocument document = PDDocument.load(inputStream)) {
+            assertEquals(first, PageKeys.pageKey(document.getPage(0), "model"));
+            assertEquals(second, PageKeys.pageKey(document.getPage(1), "model"));
+        }
+    }
+
+    /**
+     * 文档内复用共享资源摘要时，各页 key 与逐页单独计算的结果相同，且与页面处理顺序无关
+     */
+    @Test
+    public void sharedPageKeysTest() throws IOException {
+        for (String pdf : new String[]{"研报.pdf", "石油报.pdf", "Attention Is All You Need.pdf", "三季度报.pdf"}) {
+            try (InputStream inputStream = ResourceUtil.getStream(pdf);
+                 PDDocument document = PDDocument.load(inputStream)) {
+                int pageCount = document.getNumberOfPages();
+                PageKeys forward = new PageKeys();
+                PageKeys backward = new PageKeys();
+                Set<String> keys = new HashSet<>();
+                for (int i = 0; i < pageCount; i++) {
+                    String expected = PageKeys.pageKey(document.getPage(i), "model");
+                    assertEquals(pdf + " page " + i, expected, forward.key(document.getPage(i), "model"));
+                    keys.add(expected);
+                }
+                for (int i = pageCount - 1; i >= 0; i--) {
+                    assertEquals(pdf + " page " + i, PageKeys.pageKey(document.getPage(i), "model"), backward.key(document.getPage(i), "model"));
+                }
+                assertEquals(pageCount, keys.size());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.xu.layout;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.xu.layout.core.PdfTextExtractor;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.text.PDFTextStripperByArea;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author xuzc
+ */
+public class PdfTextExtractorTest {
+
+    private static final String[] PDFS = {"研报.pdf", "石油报.pdf", "Attention Is All You Need.pdf", "三季度报.pdf"};
+
+    /**
+     * 一次提取整页所有区域的结果与逐区域使用 PDFTextStripperByArea 提取的结果逐字相同。
+     * 区域包括整页、横向条带、左右半栏及随机矩形，相互重叠，覆盖去重与附加符号合并的按区域处理
+     */
+    @Test
+    public void bundledPdfTest() throws IOException {
+        Random random = new Random(3);
+        int regionCount = 0;
+        int nonEmpty = 0;
+        for (String pdf : PDFS) {
+            try (InputStream inputStream = ResourceUtil.getStream(pdf); PDDocument document = PDDocument.load(inputStream)) {
+                for (int pageIndex = 0; pageIndex < document.getNumberOfPages(); pageIndex++) {
+                    PDPage page = document.getPage(pageIndex);
+                    // 只用到图像尺寸，按 150 DPI 渲染的大小构造
+                    int width = Math.round(page.getMediaBox().getWidth() * 150 / 72);
+                    int height = Math.round(page.getMediaBox().getHeight() * 150 / 72);
+                    BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+                    List<Rectangle> rects = regions(random, width, height);
+
+                    List<String> actual = PdfTextExtractor.extractTextFromRegions(img, rects, pageIndex, page);
+                    assertEquals(rects.size(), actual.size());
+                    for (int i = 0; i < rects.size(); i++) {
+                        String expected = legacyExtractTextFromRegion(img, rects.get(i), pageIndex, page);
+                        assertEquals(pdf + " page " + pageIndex + " region " + rects.get(i), expected, actual.get(i));
+                        nonEmpty += expected.isBlank() ? 0 : 1;
+                    }
+                    regionCount += rects.size();
+                }
+            }
+        }
+        assertTrue(nonEmpty > regionCount / 2);
+    }
+
+    /**
+     * 带 cropBox 偏移及 /Rotate 的页面：区域按旋转后的页面图像给出，提取结果与未旋转、未裁剪页面上对应区域一致
+     */
+    @Test
+    public void rotatedCroppedPageTest() throws IOException {
+        try (InputStream inputStream = ResourceUtil.getStream(PDFS[2]); PDDocument document = PDDocument.load(inputStream)) {
+            PDPage page = document.getPage(0);
+            PDRectangle mediaBox = page.getMediaBox();
+            // 原页面按 1 像素 = 1 点构造图像，区域为几条横向条带
+            BufferedImage img = new BufferedImage(Math.round(mediaBox.getWidth()), Math.round(mediaBox.getHeight()), BufferedImage.TYPE_BYTE_GRAY);
+            List<Rectangle> rects = new ArrayList<>();
+            for (int y = 100; y + 60 <= 700; y += 60) {
+                rects.add(new Rectangle(40, y, 520, 60));
+            }
+            List<String> expected = PdfTextExtractor.extractTextFromRegions(img, rects, 0, page);
+            assertTrue(expected.stream().filter(text -> !text.isBlank()).count() >= rects.size() / 2);
+
+            // 裁掉左侧 30 点、下方 50 点，页面图像的原点随之移动
+            PDRectangle cropBox = new PDRectangle(30, 50, mediaBox.getWidth() - 30, mediaBox.getHeight() - 50);
+            page.setCropBox(cropBox);
+            float top = mediaBox.getHeight() - cropBox.getUpperRightY();
+            for (int rotation : new int[]{0, 90, 180, 270}) {
+                page.setRotation(rotation);
+                // 渲染图像为 2 像素 = 1 点
+                boolean rotated = rotation % 180 != 0;
+                int width = Math.round((rotated ? cropBox.getHeight() : cropBox.getWidth()) * 2);
+                int height = Math.round((rotated ? cropBox.getWidth() : cropBox.getHeight()) * 2);
+                BufferedImage rotatedImg = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+                List<Rectangle> rotatedRects = new ArrayList<>();
+                for (Rectangle rect : rects) {
+                    rotatedRects.add(rotate(new Rectangle(rect.x - 30, Math.round(rect.y - top), rect.width, rect.height),
+                            cropBox.getWidth(), cropBox.getHeight(), rotation));
+                }
+                List<String> actual = PdfTextExtractor.extractTextFromRegions(rotatedImg, rotatedRects, 0, page);
+                for (int i = 0; i < rects.size(); i++) {
+                    assertEquals("rotation " + rotation + " region " + rects.get(i), normalize(expected.get(i)), normalize(actual.get(i)));
+                }
+            }
+        }
+    }
+
+    /**
+     * 未旋转 cropBox 左上角原点的区域（点）顺时针旋转后，按 2 像素 = 1 点换算到渲染图像上
+     */
+    private static Rectangle rotate(Rectangle rect, float width, float height, int rotation) {
+        Rectangle rotated;
+        switch (rotation) {
+            case 90:
+                rotated = new Rectangle(Math.round(height - rect.y - rect.height), rect.x, rect.height, rect.width);
+                break;
+            case 180:
+                rotated = new Rectangle(Math.round(width - rect.x - rect.width), Math.round(height - rect.y - rect.height), rect.width, rect.height);
+                break;
+            case 270:
+                rotated = new Rectangle(rect.y, Math.round(width - rect.x - rect.width), rect.height, rect.width);
+                break;
+            default:
+                rotated = new Rectangle(rect);
+        }
+        return new Rectangle(rotated.x * 2, rotated.y * 2, rotated.width * 2, rotated.height * 2);
+    }
+
+    /**
+     * 旋转后的行内断词位置可能不同，只比较字符
+     */
+    private static String normalize(String text) {
+        return text.replaceAll("\\s+", "");
+    }
+
+    private static List<Rectangle> regions(Random random, int width, int height) {
+        List<Rectangle> rects = new ArrayList<>();
+        rects.add(new Rectangle(0, 0, width, height));
+        int y = 0;
+        while (y < height) {
+            int bandHeight = 40 + random.nextInt(height / 4);
+            rects.add(new Rectangle(0, y, width, bandHeight));
+            y += bandHeight - random.nextInt(20);
+        }
+        rects.add(new Rectangle(0, 0, width / 2 + 20, height));
+        rects.add(new Rectangle(width / 2 - 20, 0, width / 2 + 20, height));
+        for (int i = 0; i < 12; i++) {
+            int x = random.nextInt(width);
+            int top = random.nextInt(height);
+            rects.add(new Rectangle(x, top, 20 + random.nextInt(width - x + 20), 10 + random.nextInt(height / 5)));
+        }
+        return rects;
+    }
+
+    /**
+     * 改写前的实现：每个区域单独创建 PDFTextStripperByArea 并解析一次页面
+     */
+    private static String legacyExtractTextFromRegion(BufferedImage img, Rectangle matRect, int pageNumber, PDPage page) throws IOException {
+        Rectangle region = PdfTextExtractor.mapMatToPDFRectangle(img, matRect, page);
+        PDFTextStripperByArea stripper = new PDFTextStripperByArea();
+        stripper.addRegion("textRegion", region);
+        stripper.setStartPage(pageNumber + 1);
+        stripper.setEndPage(pageNumber + 1);
+        stripper.extractRegions(page);
+        return stripper.getTextForRegion("textRegion");
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.xu.layout;
+
+import com.xu.layout.core.RenderPolicy;
+import com.xu.layout.core.ResizeMode;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author xuzc
+ */
+public class RenderPolicyTest {
+
+    @Test
+    public void fitModelInputTest() {
+        RenderPolicy policy = RenderPolicy.fitModelInput();
+        // A4 页面、640x640 输入：拉伸模式按较短的宽度，letterbox 模式按较长的高度
+        assertEquals(640f / 595 * 72, policy.resolveDpi(595, 842, 640, 640, ResizeMode.STRETCH), 1e-3);
+        assertEquals(640f / 842 * 72, policy.resolveDpi(595, 842, 640, 640, ResizeMode.LETTERBOX), 1e-3);
+        // 过小的页面不超过 150 DPI，过大的页面不低于 36 DPI
+        assertEquals(150f, policy.resolveDpi(100, 100, 640, 640, ResizeMode.STRETCH), 0f);
+        assertEquals(150f, policy.resolveDpi(100, 100, 640, 640, ResizeMode.LETTERBOX), 0f);
+        assertEquals(36f, policy.resolveDpi(5000, 5000, 640, 640, ResizeMode.STRETCH), 0f);
+        assertEquals(36f, policy.resolveDpi(5000, 5000, 640, 640, ResizeMode.LETTERBOX), 0f);
+        // 恰好落在边界上
+        assertEquals(150f, policy.resolveDpi(640 * 72 / 150f, 640 * 72 / 150f, 640, 640, ResizeMode.STRETCH), 1e-3);
+        assertEquals(36f, policy.resolveDpi(1280, 1280, 640, 640, ResizeMode.STRETCH), 1e-3);
+    }
+
+    @Test
+    public void fixedTest() {
+        RenderPolicy policy = RenderPolicy.fixed(300);
+        assertEquals(300f, policy.resolveDpi(100, 100, 640, 640, ResizeMode.STRETCH), 0f);
+        assertEquals(300f, policy.resolveDpi(5000, 5000, 640, 640, ResizeMode.LETTERBOX), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRangeTest() {
+        RenderPolicy.fitModelInput(150, 36);
+    }
+
+}